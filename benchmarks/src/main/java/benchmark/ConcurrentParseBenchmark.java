@@ -0,0 +1,54 @@
+package benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of the thread-safe {@code JSONLoader.parse()} facade: the same parse on one thread and on
+ * as many threads as there are cores, all sharing one {@code JSONLoader}. With linear scaling the
+ * ops/s of {@code parseAllThreads} is the ops/s of {@code parseOneThread} times the core count.
+ * Other thread counts can be measured with {@code -t}, e.g.
+ * {@code -t 4 ConcurrentParseBenchmark.parseOneThread}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentParseBenchmark {
+
+    @Param({"small", "medium"})
+    public String document;
+
+    String input;
+
+    @Setup
+    public void setup() {
+        input = Corpus.document(document);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object parseOneThread() throws Throwable {
+        return (Object) Parsers.FACADE_PARSE.invokeExact((CharSequence) input);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object parseAllThreads() throws Throwable {
+        return (Object) Parsers.FACADE_PARSE.invokeExact((CharSequence) input);
+    }
+}
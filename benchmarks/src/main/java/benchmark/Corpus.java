@@ -0,0 +1,72 @@
+package benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The documents the benchmarks parse.
+ *
+ * <ul>
+ *     <li>{@code small}: the toy document from {@code SimpleJSONLoader.main}, about 250 bytes.</li>
+ *     <li>{@code medium}: the hotel {@code product_infos} response from {@code main}, about 54 KB.</li>
+ *     <li>{@code large}: the hotel response repeated inside a top-level {@code hotels} array, about 4 MB.</li>
+ * </ul>
+ */
+public final class Corpus {
+
+    static final int LARGE_COPIES = 80;
+
+    private Corpus() {
+    }
+
+    public static String document(String name) {
+        switch (name) {
+            case "small":
+                return resource("small.json");
+            case "medium":
+                return resource("hotel.json");
+            case "large":
+                return large();
+            default:
+                throw new IllegalArgumentException("Unknown corpus document: " + name);
+        }
+    }
+
+    static String large() {
+        String hotel = resource("hotel.json");
+        StringBuilder sb = new StringBuilder(hotel.length() * LARGE_COPIES + 32);
+        sb.append("{\"hotels\" : [");
+        for (int i = 0; i < LARGE_COPIES; i++) {
+            if (i > 0) {
+                sb.append(",\n");
+            }
+            sb.append(hotel);
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    static String resource(String file) {
+        try (InputStream in = Corpus.class.getResourceAsStream("/corpus/" + file)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing corpus resource " + file);
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[8192];
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                out.write(chunk, 0, n);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read corpus resource " + file, e);
+        }
+    }
+
+    /** Size of the document in megabytes of UTF-8, used for the MB/s counter. */
+    public static double megabytes(String document) {
+        return document.getBytes(StandardCharsets.UTF_8).length / (1024.0 * 1024.0);
+    }
+}
@@ -0,0 +1,96 @@
+package benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Throughput of {@code SimpleJSONLoader.parse()}, {@code SimpleJSONParser.parse()} and
+ * {@code UTF8JSONLoader.parse()} and {@code UTF8JSONLoader.parseTwoStage()} (on the UTF-8 bytes of the
+ * document) over the {@link Corpus}. Besides ops/s every benchmark reports {@code megabytes} (MB/s of input), and
+ * {@code gc.alloc.rate.norm} when run with {@code -prof gc} (the default in {@link BenchmarkMain}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParseBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String document;
+
+    String input;
+
+    byte[] utf8;
+
+    double size;
+
+    @Setup
+    public void setup() {
+        input = Corpus.document(document);
+        utf8 = input.getBytes(StandardCharsets.UTF_8);
+        size = Corpus.megabytes(input);
+    }
+
+    /** Megabytes of input parsed; JMH turns the per-iteration total into MB/s. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Benchmark
+    public Object loaderParse(Bytes bytes) throws Throwable {
+        Object loader = Parsers.NEW_LOADER.invokeExact(input);
+        Parsers.LOADER_PARSE.invokeExact(loader);
+        bytes.megabytes += size;
+        return loader;
+    }
+
+    @Benchmark
+    public Object parserParse(Bytes bytes) throws Throwable {
+        Object parser = Parsers.NEW_PARSER.invokeExact(input);
+        Object formatted = Parsers.PARSER_PARSE.invokeExact(parser);
+        bytes.megabytes += size;
+        return formatted;
+    }
+
+    @Benchmark
+    public Object utf8LoaderParse(Bytes bytes) throws Throwable {
+        Object loader = Parsers.NEW_UTF8_LOADER.invokeExact(utf8);
+        Parsers.UTF8_LOADER_PARSE.invokeExact(loader);
+        bytes.megabytes += size;
+        return loader;
+    }
+
+    /** The only benchmark that reaches the SIMD indexer, so the only fork that needs the Vector API module. */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+    public Object utf8LoaderParseTwoStage(Bytes bytes) throws Throwable {
+        Object loader = Parsers.NEW_UTF8_LOADER.invokeExact(utf8);
+        Parsers.UTF8_LOADER_PARSE_TWO_STAGE.invokeExact(loader);
+        bytes.megabytes += size;
+        return loader;
+    }
+}
@@ -0,0 +1,90 @@
+package benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Map;
+
+/**
+ * Handles to the parser classes.
+ *
+ * <p>The parsers live in the unnamed package, which cannot be imported from a named package, while
+ * JMH refuses benchmark classes in the unnamed package. The classes are reached through constant
+ * {@link MethodHandle}s instead, which the JIT inlines like direct calls.
+ */
+final class Parsers {
+
+    static final Class<?> LOADER = load("SimpleJSONLoader");
+    static final Class<?> PARSER = load("SimpleJSONParser");
+    static final Class<?> UTF8_LOADER = load("UTF8JSONLoader");
+    static final Class<?> FACADE = load("JSONLoader");
+    static final Class<?> WRITER = load("JSONWriter");
+    static final Class<?> UTF8_WRITER = load("UTF8JSONWriter");
+
+    static final MethodHandle NEW_LOADER = constructor(LOADER, String.class);
+    static final MethodHandle LOADER_PARSE = method(LOADER, "parse", MethodType.methodType(void.class));
+
+    static final MethodHandle NEW_PARSER = constructor(PARSER, String.class);
+    static final MethodHandle PARSER_PARSE = method(PARSER, "parse", MethodType.methodType(String.class));
+
+    static final MethodHandle NEW_UTF8_LOADER = constructor(UTF8_LOADER, byte[].class);
+    static final MethodHandle UTF8_LOADER_PARSE = method(UTF8_LOADER, "parse", MethodType.methodType(void.class));
+    static final MethodHandle UTF8_LOADER_PARSE_TWO_STAGE =
+            method(UTF8_LOADER, "parseTwoStage", MethodType.methodType(void.class));
+
+    static final MethodHandle FACADE_PARSE =
+            staticMethod(FACADE, "parse", MethodType.methodType(Map.class, CharSequence.class));
+
+    static final MethodHandle WRITER_TO_STRING =
+            staticMethod(WRITER, "toJSONString", MethodType.methodType(String.class, Object.class));
+
+    static final MethodHandle UTF8_WRITER_THREAD_LOCAL =
+            staticMethod(UTF8_WRITER, "threadLocal", MethodType.methodType(UTF8_WRITER));
+    static final MethodHandle UTF8_WRITER_VALUE =
+            method(UTF8_WRITER, "value", MethodType.methodType(WRITER, Object.class));
+    static final MethodHandle UTF8_WRITER_TO_BYTE_ARRAY =
+            method(UTF8_WRITER, "toByteArray", MethodType.methodType(byte[].class));
+
+    private Parsers() {
+    }
+
+    static Class<?> load(String name) {
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static MethodHandle constructor(Class<?> owner, Class<?>... parameters) {
+        try {
+            MethodHandle h = MethodHandles.publicLookup()
+                    .findConstructor(owner, MethodType.methodType(void.class, parameters));
+            return h.asType(h.type().changeReturnType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static MethodHandle staticMethod(Class<?> owner, String name, MethodType type) {
+        try {
+            MethodHandle h = MethodHandles.publicLookup().findStatic(owner, name, type);
+            return h.asType(h.type().changeReturnType(Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    static MethodHandle method(Class<?> owner, String name, MethodType type) {
+        try {
+            MethodHandle h = MethodHandles.publicLookup().findVirtual(owner, name, type);
+            MethodType erased = h.type().changeParameterType(0, Object.class);
+            if (!erased.returnType().isPrimitive()) {
+                erased = erased.changeReturnType(Object.class);
+            }
+            return h.asType(erased);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Producing the UTF-8 bytes of a parsed {@link Corpus} document: {@code JSONWriter.toJSONString()}
+ * followed by {@code getBytes(UTF_8)}, as an HTTP layer would do with a String, against the
+ * thread-local {@code UTF8JSONWriter}, which encodes into a reused byte[] and copies out only the
+ * final bytes. Both return a byte[] of the same document; compare ops/s and
+ * {@code gc.alloc.rate.norm}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WriteBenchmark {
+
+    @Param({"small", "medium"})
+    public String document;
+
+    Object tree;
+
+    @Setup
+    public void setup() throws Throwable {
+        tree = (Object) Parsers.FACADE_PARSE.invokeExact((CharSequence) Corpus.document(document));
+    }
+
+    @Benchmark
+    public byte[] stringThenGetBytes() throws Throwable {
+        String json = (String) (Object) Parsers.WRITER_TO_STRING.invokeExact(tree);
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] utf8Writer() throws Throwable {
+        Object writer = (Object) Parsers.UTF8_WRITER_THREAD_LOCAL.invokeExact();
+        Object ignored = (Object) Parsers.UTF8_WRITER_VALUE.invokeExact(writer, tree);
+        return (byte[]) (Object) Parsers.UTF8_WRITER_TO_BYTE_ARRAY.invokeExact(writer);
+    }
+}
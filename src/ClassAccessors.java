@@ -0,0 +1,166 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * What SimpleJSONLoader.superToString needs to know about a class, worked out once per class and
+ * cached in a ClassValue: whether instances are written as a quoted string, and otherwise a getter
+ * MethodHandle and the label to write for every declared field, in declaration order. JSONWriter
+ * uses a second cache holding only the fields it serializes, so that static, transient and
+ * synthetic fields are never made accessible for it.
+ * */
+final class ClassAccessors {
+
+    static final ClassValue<ClassAccessors> CACHE = new ClassValue<ClassAccessors>(){
+        @Override
+        protected ClassAccessors computeValue(Class<?> type){
+            return new ClassAccessors(type, false);
+        }
+    };
+
+    static final ClassValue<ClassAccessors> SERIALIZED = new ClassValue<ClassAccessors>(){
+        @Override
+        protected ClassAccessors computeValue(Class<?> type){
+            return new ClassAccessors(type, true);
+        }
+    };
+
+    static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+    /**
+     * Boxed primitives and String, written as "value".
+     * */
+    final boolean scalar;
+
+    /**
+     * Classes of the JDK met as plain objects (java.time types, UUID, URI and so on): their fields
+     * are internal and, from JDK 9 on, not accessible, so they are written as their toString(),
+     * quoted. JSONWriter handles Maps, Iterables and arrays before it gets here.
+     * */
+    final boolean jdkValue;
+
+    final FieldWriter[] fields;
+
+
+    private ClassAccessors(Class<?> type, boolean serializedOnly){
+        scalar = type == Integer.class
+                || type == Double.class
+                || type == Float.class
+                || type == Short.class
+                || type == Long.class
+                || type == Boolean.class
+                || type == Character.class
+                || type == Byte.class
+                || type == String.class;
+        jdkValue = !scalar && isJDKClass(type);
+        if(scalar || jdkValue){
+            fields = new FieldWriter[0];
+            return;
+        }
+        Field[] fs = type.getDeclaredFields();
+        FieldWriter[] fields = new FieldWriter[fs.length];
+        int n = 0;
+        for(Field f : fs){
+            if(!serializedOnly || isSerialized(f)){
+                fields[n++] = new FieldWriter(f);
+            }
+        }
+        this.fields = n == fields.length ? fields : Arrays.copyOf(fields, n);
+    }
+
+    /**
+     * Accessors for superToString: every declared field.
+     * */
+    static ClassAccessors of(Class<?> type){
+        return CACHE.get(type);
+    }
+
+    /**
+     * Accessors for JSONWriter: only the fields it writes.
+     * */
+    static ClassAccessors serialized(Class<?> type){
+        return SERIALIZED.get(type);
+    }
+
+    /**
+     * The fields that could not be read, by name, with the reason each is written as null.
+     * */
+    Map<String, Exception> failures(){
+        Map<String, Exception> failures = new LinkedHashMap<>();
+        for(FieldWriter field : fields){
+            if(field.failure != null){
+                failures.put(field.name, field.failure);
+            }
+        }
+        return failures;
+    }
+
+    static boolean isSerialized(Field field){
+        int modifiers = field.getModifiers();
+        return !Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic();
+    }
+
+    static boolean isJDKClass(Class<?> type){
+        String name = type.getName();
+        return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+                || name.startsWith("sun.") || name.startsWith("com.sun.");
+    }
+
+    static final class FieldWriter {
+
+        /**
+         * The tab, quoted name and colon written before the value.
+         * */
+        final String label;
+
+        final String name;
+
+        final MethodHandle getter;
+
+        /**
+         * Set when the field could not be read: setAccessible() refused it (a field of a JDK class
+         * on JDK 9 and later) or the getter could not be made. The field is written as null, as
+         * before the cache; JSONWriter.unreadableFields() tells which fields and why.
+         * */
+        final Exception failure;
+
+
+        FieldWriter(Field field){
+            label = "\t\"" + field.getName() + "\":";
+            name = field.getName();
+            MethodHandle h;
+            Exception failure = null;
+            try{
+                field.setAccessible(true);
+                h = MethodHandles.lookup().unreflectGetter(field);
+                if(Modifier.isStatic(field.getModifiers())){
+                    h = MethodHandles.dropArguments(h, 0, Object.class);
+                }
+                h = h.asType(GETTER);
+            }catch(IllegalAccessException | RuntimeException e){
+                failure = e;
+                h = MethodHandles.dropArguments(MethodHandles.constant(Object.class, null), 0, Object.class);
+            }
+            this.getter = h;
+            this.failure = failure;
+        }
+
+        Object get(Object o){
+            if(failure != null){
+                return null;
+            }
+            try{
+                return getter.invokeExact(o);
+            }catch(RuntimeException | Error e){
+                throw e;
+            }catch(Throwable e){
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,274 @@
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What SimpleJSONLoader.load() needs to fill instances of a class, the inverse of ClassAccessors:
+ * worked out once per class and cached in a ClassValue.
+ *
+ * A plain class is created with its no-argument constructor and its non-static, non-transient
+ * declared fields are set through MethodHandles as members are read. A record (recognised
+ * reflectively, so that the core still runs on Java 8) collects its components in an Object[] and
+ * is created with the canonical constructor once the object is closed.
+ * */
+final class ClassBinding {
+
+    static final ClassValue<ClassBinding> CACHE = new ClassValue<ClassBinding>(){
+        @Override
+        protected ClassBinding computeValue(Class<?> type){
+            return new ClassBinding(type);
+        }
+    };
+
+    static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    static final MethodType FACTORY = MethodType.methodType(Object.class);
+
+    static final MethodType RECORD_FACTORY = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * Class.isRecord() and Class.getRecordComponents(), or null before Java 16.
+     * */
+    static final Method IS_RECORD = classMethod("isRecord");
+
+    static final Method GET_RECORD_COMPONENTS = classMethod("getRecordComponents");
+
+    final Class<?> type;
+
+    final boolean record;
+
+    /**
+     * Creates the instance, () -> Object for a plain class, (Object[]) -> Object for a record.
+     * Null when the class cannot be created, see failure.
+     * */
+    final MethodHandle factory;
+
+    final String failure;
+
+    final MemberBinding[] members;
+
+    /**
+     * Zero or null for every record component, the value of components missing from the JSON.
+     * */
+    final Object[] defaults;
+
+    private final Map<String, MemberBinding> byName = new HashMap<>();
+
+
+    private ClassBinding(Class<?> type){
+        this.type = type;
+        this.record = isRecord(type);
+        MethodHandle factory = null;
+        String failure = null;
+        if(record){
+            members = recordComponents(type);
+            defaults = new Object[members.length];
+            Class<?>[] parameters = new Class<?>[members.length];
+            for(int i = 0; i < members.length; i++){
+                parameters[i] = members[i].raw;
+                defaults[i] = members[i].raw.isPrimitive() ? Array.get(Array.newInstance(members[i].raw, 1), 0) : null;
+            }
+            try{
+                Constructor<?> c = type.getDeclaredConstructor(parameters);
+                c.setAccessible(true);
+                factory = MethodHandles.lookup().unreflectConstructor(c)
+                        .asSpreader(Object[].class, members.length)
+                        .asType(RECORD_FACTORY);
+            }catch(ReflectiveOperationException | RuntimeException e){
+                failure = "Cannot use the canonical constructor of " + type.getName() + ": " + e;
+            }
+        }else{
+            members = fields(type);
+            defaults = null;
+            if(type.isInterface() || Modifier.isAbstract(type.getModifiers())){
+                failure = "Cannot create an instance of " + type.getName() + ".";
+            }else{
+                try{
+                    Constructor<?> c = type.getDeclaredConstructor();
+                    c.setAccessible(true);
+                    factory = MethodHandles.lookup().unreflectConstructor(c).asType(FACTORY);
+                }catch(ReflectiveOperationException | RuntimeException e){
+                    failure = type.getName() + " has no usable no-argument constructor.";
+                }
+            }
+        }
+        this.factory = factory;
+        this.failure = failure;
+        for(MemberBinding m : members){
+            byName.put(m.name, m);
+        }
+    }
+
+    static ClassBinding of(Class<?> type){
+        return CACHE.get(type);
+    }
+
+    MemberBinding member(String name){
+        return byName.get(name);
+    }
+
+    /**
+     * A new instance of a plain class, or the argument array of a record.
+     * */
+    Object start() throws Exception{
+        if(factory == null){
+            throw new Exception(failure);
+        }
+        if(record){
+            return defaults.clone();
+        }
+        return invoke(factory);
+    }
+
+    /**
+     * The finished instance for what start() returned.
+     * */
+    Object finish(Object state) throws Exception{
+        if(!record){
+            return state;
+        }
+        try{
+            return factory.invokeExact((Object[]) state);
+        }catch(Exception | Error e){
+            throw e;
+        }catch(Throwable e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object invoke(MethodHandle h) throws Exception{
+        try{
+            return h.invokeExact();
+        }catch(Exception | Error e){
+            throw e;
+        }catch(Throwable e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MemberBinding[] fields(Class<?> type){
+        Field[] fs = type.getDeclaredFields();
+        int n = 0;
+        MemberBinding[] members = new MemberBinding[fs.length];
+        for(Field f : fs){
+            int modifiers = f.getModifiers();
+            if(Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || f.isSynthetic()){
+                continue;
+            }
+            members[n] = new MemberBinding(f.getName(), f.getGenericType(), f.getType(), n, setter(f));
+            n++;
+        }
+        MemberBinding[] trimmed = new MemberBinding[n];
+        System.arraycopy(members, 0, trimmed, 0, n);
+        return trimmed;
+    }
+
+    private static MethodHandle setter(Field f){
+        try{
+            f.setAccessible(true);
+            return MethodHandles.lookup().unreflectSetter(f).asType(SETTER);
+        }catch(IllegalAccessException | RuntimeException e){
+            return null;
+        }
+    }
+
+    private static MemberBinding[] recordComponents(Class<?> type){
+        try{
+            Object[] components = (Object[]) GET_RECORD_COMPONENTS.invoke(type);
+            MemberBinding[] members = new MemberBinding[components.length];
+            for(int i = 0; i < components.length; i++){
+                Class<?> c = components[i].getClass();
+                String name = (String) c.getMethod("getName").invoke(components[i]);
+                Type generic = (Type) c.getMethod("getGenericType").invoke(components[i]);
+                Class<?> raw = (Class<?>) c.getMethod("getType").invoke(components[i]);
+                members[i] = new MemberBinding(name, generic, raw, i, null);
+            }
+            return members;
+        }catch(ReflectiveOperationException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isRecord(Class<?> type){
+        if(IS_RECORD == null){
+            return false;
+        }
+        try{
+            return (Boolean) IS_RECORD.invoke(type);
+        }catch(ReflectiveOperationException e){
+            return false;
+        }
+    }
+
+    private static Method classMethod(String name){
+        try{
+            return Class.class.getMethod(name);
+        }catch(NoSuchMethodException e){
+            return null;
+        }
+    }
+
+    /**
+     * A field of a plain class or a component of a record.
+     * */
+    static final class MemberBinding {
+
+        final String name;
+
+        final Type type;
+
+        final Class<?> raw;
+
+        /**
+         * Position in the record's constructor arguments.
+         * */
+        final int index;
+
+        /**
+         * (instance, value) -> void for a field; null for a record component, or a field that
+         * cannot be set, which is then skipped.
+         * */
+        final MethodHandle setter;
+
+
+        MemberBinding(String name, Type type, Class<?> raw, int index, MethodHandle setter){
+            this.name = name;
+            this.type = type;
+            this.raw = raw;
+            this.index = index;
+            this.setter = setter;
+        }
+
+        /**
+         * Stores value into state as returned by ClassBinding.start(). Null is not stored into a
+         * primitive, which keeps its default.
+         * */
+        void set(Object state, Object value, boolean record) throws Exception{
+            if(value == null && raw.isPrimitive()){
+                return;
+            }
+            if(record){
+                ((Object[]) state)[index] = value;
+                return;
+            }
+            if(setter == null){
+                return;
+            }
+            try{
+                setter.invokeExact(state, value);
+            }catch(Exception | Error e){
+                throw e;
+            }catch(Throwable e){
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
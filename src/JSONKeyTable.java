@@ -0,0 +1,169 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Bounded symbol table that hands out one canonical String per object key.
+ *
+ * Loaders look keys up by the raw range of the input and a hash computed while scanning it, so a
+ * key seen before costs no allocation at all, and every record of a large array shares the same
+ * key instances (whose hash codes are then cached as well). The table never grows: a key whose
+ * probe sequence is full replaces a key in it that has not been looked up since the last
+ * replacement there (a clock within the sequence), so a long-lived loader keeps up as the schemas
+ * it sees change. Keys longer than MAX_KEY_LENGTH are not kept. Not
+ * thread-safe; every loader owns its table.
+ * */
+public class JSONKeyTable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    static final int MAX_PROBES = 8;
+
+    static final int MAX_KEY_LENGTH = 64;
+
+    final String[] keys;
+
+    final int[] hashes;
+
+    final int mask;
+
+    /**
+     * Set when the key in a slot is looked up, cleared when a replacement passes over it.
+     * */
+    final boolean[] used;
+
+
+    public JSONKeyTable(){
+        this(DEFAULT_CAPACITY);
+    }
+
+    public JSONKeyTable(int capacity){
+        int size = Integer.highestOneBit(Math.max(capacity, MAX_PROBES) - 1) << 1;
+        keys = new String[size];
+        hashes = new int[size];
+        used = new boolean[size];
+        mask = size - 1;
+    }
+
+    /**
+     * The canonical String for src[from, to). hash must be computed like String.hashCode() over
+     * the same characters.
+     * */
+    public String lookup(String src, int from, int to, int hash){
+        int length = to - from;
+        if(length > MAX_KEY_LENGTH){
+            return src.substring(from, to);
+        }
+        int slot = spread(hash) & mask;
+        for(int probe = 0; probe < MAX_PROBES; probe++){
+            String key = keys[slot];
+            if(key == null){
+                key = src.substring(from, to);
+                keys[slot] = key;
+                hashes[slot] = hash;
+                return key;
+            }
+            if(hashes[slot] == hash && key.length() == length && key.regionMatches(0, src, from, length)){
+                used[slot] = true;
+                return key;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return replace(hash, src.substring(from, to));
+    }
+
+    /**
+     * The canonical String for the ASCII bytes src[from, to), hashed like lookup(String, ...).
+     * */
+    public String lookupAscii(ByteBuffer src, int from, int to, int hash){
+        int length = to - from;
+        if(length > MAX_KEY_LENGTH){
+            return ascii(src, from, to);
+        }
+        int slot = spread(hash) & mask;
+        for(int probe = 0; probe < MAX_PROBES; probe++){
+            String key = keys[slot];
+            if(key == null){
+                key = ascii(src, from, to);
+                keys[slot] = key;
+                hashes[slot] = hash;
+                return key;
+            }
+            if(hashes[slot] == hash && key.length() == length && asciiEquals(key, src, from)){
+                used[slot] = true;
+                return key;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return replace(hash, ascii(src, from, to));
+    }
+
+    /**
+     * The canonical instance equal to key, for keys that had to be decoded (escapes, non-ASCII).
+     * */
+    public String intern(String key){
+        if(key.length() > MAX_KEY_LENGTH){
+            return key;
+        }
+        int hash = key.hashCode();
+        int slot = spread(hash) & mask;
+        for(int probe = 0; probe < MAX_PROBES; probe++){
+            String candidate = keys[slot];
+            if(candidate == null){
+                keys[slot] = key;
+                hashes[slot] = hash;
+                return key;
+            }
+            if(candidate == key || (hashes[slot] == hash && candidate.equals(key))){
+                used[slot] = true;
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return replace(hash, key);
+    }
+
+    /**
+     * Stores key, whose probe sequence is full, over one of the keys in that sequence.
+     * */
+    private String replace(int hash, String key){
+        int home = spread(hash) & mask;
+        int slot = home;
+        for(int probe = 0; used[slot]; probe++){
+            used[slot] = false;
+            slot = probe == MAX_PROBES - 1 ? home : (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        hashes[slot] = hash;
+        return key;
+    }
+
+    public void clear(){
+        Arrays.fill(keys, null);
+        Arrays.fill(used, false);
+    }
+
+    static int spread(int hash){
+        return hash ^ (hash >>> 16);
+    }
+
+    static boolean asciiEquals(String key, ByteBuffer src, int from){
+        for(int i = 0; i < key.length(); i++){
+            if(key.charAt(i) != src.get(from + i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static String ascii(ByteBuffer src, int from, int to){
+        if(src.hasArray()){
+            return new String(src.array(), src.arrayOffset() + from, to - from, StandardCharsets.ISO_8859_1);
+        }
+        char[] chars = new char[to - from];
+        for(int i = from; i < to; i++){
+            chars[i - from] = (char) src.get(i);
+        }
+        return new String(chars);
+    }
+}
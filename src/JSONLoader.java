@@ -0,0 +1,137 @@
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread-safe entry point for loading JSON objects.
+ *
+ * SimpleJSONLoader keeps its cursor and result in fields, so one instance must not be shared
+ * between threads. A JSONLoader holds only settings, which never change once it is created (the
+ * with* methods return new instances), and parses on a SimpleJSONLoader owned by the calling
+ * thread. So:
+ *
+ *  - every method may be called from any number of threads at once, on the same JSONLoader;
+ *  - every call returns a tree built for that call alone, which the caller may modify or hand to
+ *    other threads (published safely, e.g. through a concurrent queue) without further locking;
+ *  - threads share nothing while parsing, so throughput scales with the number of cores.
+ *
+ * Each thread keeps one loader per JSONLoader, with its scratch buffers and key table, but not
+ * the last document: inputs are released when a call returns. A call made while another is under
+ * way on the same thread (from a constructor run by load(json, Class), say) finds that loader
+ * busy and parses on a fresh one instead.
+ * */
+public final class JSONLoader {
+
+    public static final JSONLoader DEFAULT = new JSONLoader(false, SimpleJSONLoader.DEFAULT_MAX_DEPTH);
+
+    final boolean compactNumericArrays;
+
+    final int maxDepth;
+
+    private final ThreadLocal<SimpleJSONLoader> loaders;
+
+
+    private JSONLoader(boolean compactNumericArrays, int maxDepth){
+        this.compactNumericArrays = compactNumericArrays;
+        this.maxDepth = maxDepth;
+        this.loaders = ThreadLocal.withInitial(this::newLoader);
+    }
+
+    private SimpleJSONLoader newLoader(){
+        SimpleJSONLoader loader = new SimpleJSONLoader();
+        loader.setCompactNumericArrays(compactNumericArrays);
+        loader.setMaxDepth(maxDepth);
+        return loader;
+    }
+
+    /**
+     * The loader of the calling thread, or a new one when a call further up the stack is using it.
+     * */
+    private SimpleJSONLoader acquire(){
+        SimpleJSONLoader loader = loaders.get();
+        if(loader.inUse){
+            loader = newLoader();
+        }
+        loader.inUse = true;
+        return loader;
+    }
+
+    private static void release(SimpleJSONLoader loader){
+        loader.release();
+        loader.inUse = false;
+    }
+
+    /**
+     * Loads json with the default settings of SimpleJSONLoader.
+     * */
+    public static Map<String, Object> parse(CharSequence json) throws Exception{
+        return DEFAULT.load(json);
+    }
+
+    public static Map<String, Object> parse(byte[] utf8) throws Exception{
+        return DEFAULT.load(utf8);
+    }
+
+    public JSONLoader withCompactNumericArrays(boolean compactNumericArrays){
+        return new JSONLoader(compactNumericArrays, maxDepth);
+    }
+
+    public JSONLoader withMaxDepth(int maxDepth){
+        if(maxDepth < 1){
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        return new JSONLoader(compactNumericArrays, maxDepth);
+    }
+
+    public Map<String, Object> load(CharSequence json) throws Exception{
+        SimpleJSONLoader loader = acquire();
+        try{
+            loader.reset(json).parse();
+            return loader.dataMap;
+        }finally{
+            release(loader);
+        }
+    }
+
+    public Map<String, Object> load(byte[] utf8) throws Exception{
+        SimpleJSONLoader loader = acquire();
+        try{
+            loader.reset(utf8).parse();
+            return loader.dataMap;
+        }finally{
+            release(loader);
+        }
+    }
+
+    /**
+     * json read into a new instance of type, see SimpleJSONLoader.load(Class).
+     * */
+    public <T> T load(CharSequence json, Class<T> type) throws Exception{
+        SimpleJSONLoader loader = acquire();
+        try{
+            return loader.reset(json).load(type);
+        }finally{
+            release(loader);
+        }
+    }
+
+    public <T> T load(byte[] utf8, Class<T> type) throws Exception{
+        SimpleJSONLoader loader = acquire();
+        try{
+            return loader.reset(utf8).load(type);
+        }finally{
+            release(loader);
+        }
+    }
+
+    /**
+     * The values at path in json, see SimpleJSONLoader.select().
+     * */
+    public List<Object> select(CharSequence json, String path) throws Exception{
+        SimpleJSONLoader loader = acquire();
+        try{
+            return loader.reset(json).select(path);
+        }finally{
+            release(loader);
+        }
+    }
+}
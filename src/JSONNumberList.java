@@ -0,0 +1,219 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A JSON array of numbers stored in one int[], long[] or double[] instead of a list of boxes.
+ *
+ * SimpleJSONLoader and UTF8JSONLoader produce it for numeric arrays when compact numeric arrays
+ * are switched on. The array starts as int[] and widens to long[] or double[] as larger or
+ * fractional values appear, so get(i) returns the widest kind seen (e.g. [1, 2.5] reads back as
+ * 1.0 and 2.5). Use getInt, getLong and getDouble to read values without boxing. The list is
+ * read-only.
+ * */
+public class JSONNumberList extends AbstractList<Number> implements RandomAccess {
+
+    static final long MAX_EXACT_DOUBLE = 1L << 53;
+
+    int kind = JSONNumberParser.INT;
+
+    int[] ints = new int[8];
+
+    long[] longs;
+
+    double[] doubles;
+
+    int size;
+
+
+    /**
+     * JSONNumberParser.INT, LONG or DOUBLE: the type of the backing array.
+     * */
+    public int kind(){
+        return kind;
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    @Override
+    public Number get(int i){
+        checkIndex(i);
+        switch (kind){
+            case JSONNumberParser.INT:
+                return ints[i];
+            case JSONNumberParser.LONG:
+                return longs[i];
+            default:
+                return doubles[i];
+        }
+    }
+
+    public int getInt(int i){
+        checkIndex(i);
+        if(kind == JSONNumberParser.INT){
+            return ints[i];
+        }
+        if(kind == JSONNumberParser.LONG){
+            return Math.toIntExact(longs[i]);
+        }
+        throw new IllegalStateException("The array holds doubles.");
+    }
+
+    public long getLong(int i){
+        checkIndex(i);
+        if(kind == JSONNumberParser.INT){
+            return ints[i];
+        }
+        if(kind == JSONNumberParser.LONG){
+            return longs[i];
+        }
+        throw new IllegalStateException("The array holds doubles.");
+    }
+
+    public double getDouble(int i){
+        checkIndex(i);
+        switch (kind){
+            case JSONNumberParser.INT:
+                return ints[i];
+            case JSONNumberParser.LONG:
+                return longs[i];
+            default:
+                return doubles[i];
+        }
+    }
+
+    public int[] toIntArray(){
+        if(kind != JSONNumberParser.INT){
+            throw new IllegalStateException("The array does not hold ints.");
+        }
+        return Arrays.copyOf(ints, size);
+    }
+
+    public long[] toLongArray(){
+        long[] copy = new long[size];
+        for(int i = 0; i < size; i++){
+            copy[i] = getLong(i);
+        }
+        return copy;
+    }
+
+    public double[] toDoubleArray(){
+        if(kind == JSONNumberParser.DOUBLE){
+            return Arrays.copyOf(doubles, size);
+        }
+        double[] copy = new double[size];
+        for(int i = 0; i < size; i++){
+            copy[i] = getDouble(i);
+        }
+        return copy;
+    }
+
+    /**
+     * Appends the last number parsed by the given parser. Returns false, leaving the list
+     * unchanged, when the value does not fit the compact representation: a BigInteger, or a mix of
+     * doubles and longs beyond 2^53.
+     * */
+    boolean add(JSONNumberParser number){
+        switch (number.kind()){
+            case JSONNumberParser.INT:
+                if(kind == JSONNumberParser.INT){
+                    if(size == ints.length){
+                        ints = Arrays.copyOf(ints, size * 2);
+                    }
+                    ints[size++] = (int) number.longValue();
+                    return true;
+                }
+                return addLong(number.longValue());
+            case JSONNumberParser.LONG:
+                if(kind == JSONNumberParser.INT){
+                    widenToLong();
+                }
+                return addLong(number.longValue());
+            case JSONNumberParser.DOUBLE:
+                if(kind == JSONNumberParser.INT){
+                    widenToDouble();
+                }else if(kind == JSONNumberParser.LONG && !widenToDouble()){
+                    return false;
+                }
+                addDouble(number.doubleValue());
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    boolean addLong(long v){
+        if(kind == JSONNumberParser.DOUBLE){
+            if(!exactInDouble(v)){
+                return false;
+            }
+            addDouble(v);
+            return true;
+        }
+        if(size == longs.length){
+            longs = Arrays.copyOf(longs, size * 2);
+        }
+        longs[size++] = v;
+        return true;
+    }
+
+    void addDouble(double v){
+        if(size == doubles.length){
+            doubles = Arrays.copyOf(doubles, size * 2);
+        }
+        doubles[size++] = v;
+    }
+
+    void widenToLong(){
+        longs = new long[Math.max(ints.length, 8)];
+        for(int i = 0; i < size; i++){
+            longs[i] = ints[i];
+        }
+        ints = null;
+        kind = JSONNumberParser.LONG;
+    }
+
+    boolean widenToDouble(){
+        double[] widened = new double[Math.max(size * 2, 8)];
+        for(int i = 0; i < size; i++){
+            if(kind == JSONNumberParser.INT){
+                widened[i] = ints[i];
+            }else if(exactInDouble(longs[i])){
+                widened[i] = longs[i];
+            }else{
+                return false;
+            }
+        }
+        doubles = widened;
+        ints = null;
+        longs = null;
+        kind = JSONNumberParser.DOUBLE;
+        return true;
+    }
+
+    /**
+     * Drops the spare capacity once the array is complete.
+     * */
+    void trim(){
+        if(kind == JSONNumberParser.INT && ints.length != size){
+            ints = Arrays.copyOf(ints, size);
+        }else if(kind == JSONNumberParser.LONG && longs.length != size){
+            longs = Arrays.copyOf(longs, size);
+        }else if(kind == JSONNumberParser.DOUBLE && doubles.length != size){
+            doubles = Arrays.copyOf(doubles, size);
+        }
+    }
+
+    static boolean exactInDouble(long v){
+        return v >= -MAX_EXACT_DOUBLE && v <= MAX_EXACT_DOUBLE;
+    }
+
+    void checkIndex(int i){
+        if(i < 0 || i >= size){
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+    }
+}
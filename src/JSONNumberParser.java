@@ -0,0 +1,355 @@
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+/**
+ * Parses JSON numbers straight from the input, without building a String and without exceptions
+ * on the way to the result.
+ *
+ * Digits are accumulated into a long. Integers become Integer or Long, and BigInteger only when
+ * they do not fit in a long. Decimals are converted with Clinger's exact fast path when the digits
+ * and the power of ten are small enough, and with the Eisel-Lemire algorithm otherwise; only the
+ * rare inputs neither can decide (more than 19 significant digits, subnormals, exact halfway
+ * cases far from 1) go through Double.parseDouble.
+ *
+ * One instance holds the result of the last parse and is reused by its loader.
+ * */
+public class JSONNumberParser {
+
+    public static final int INT = 0;
+    public static final int LONG = 1;
+    public static final int DOUBLE = 2;
+    public static final int BIG_INTEGER = 3;
+
+    static final int SMALLEST_POWER = -342;
+    static final int LARGEST_POWER = 308;
+
+    /** Upper and lower 64 bits of 5^q, normalized to 128 bits, for q in [-342, 308]. */
+    static final long[] POWERS_OF_FIVE_HIGH = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+    static final long[] POWERS_OF_FIVE_LOW = new long[LARGEST_POWER - SMALLEST_POWER + 1];
+
+    static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    static{
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger two127 = BigInteger.ONE.shiftLeft(127);
+        BigInteger mask64 = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+        BigInteger five = BigInteger.valueOf(5);
+        for(int q = SMALLEST_POWER; q <= LARGEST_POWER; q++){
+            BigInteger c;
+            if(q < 0){
+                BigInteger power5 = five.pow(-q);
+                int z = power5.bitLength();
+                int b = q >= -27 ? z + 127 : 2 * z + 128;
+                c = BigInteger.ONE.shiftLeft(b).divide(power5).add(BigInteger.ONE);
+                while(c.compareTo(two128) >= 0){
+                    c = c.shiftRight(1);
+                }
+            }else{
+                c = five.pow(q);
+                while(c.compareTo(two127) < 0){
+                    c = c.shiftLeft(1);
+                }
+                while(c.compareTo(two128) >= 0){
+                    c = c.shiftRight(1);
+                }
+            }
+            POWERS_OF_FIVE_HIGH[q - SMALLEST_POWER] = c.shiftRight(64).longValue();
+            POWERS_OF_FIVE_LOW[q - SMALLEST_POWER] = c.and(mask64).longValue();
+        }
+    }
+
+    int kind;
+
+    long longValue;
+
+    double doubleValue;
+
+    BigInteger bigValue;
+
+    /**
+     * The text of the number being parsed.
+     * */
+    char[] text = new char[32];
+
+    public int kind(){
+        return kind;
+    }
+
+    public long longValue(){
+        return longValue;
+    }
+
+    public double doubleValue(){
+        return doubleValue;
+    }
+
+    /**
+     * Boxes the last result: Integer, Long, Double or BigInteger.
+     * */
+    public Number toNumber(){
+        switch (kind){
+            case INT:
+                return (int) longValue;
+            case LONG:
+                return longValue;
+            case DOUBLE:
+                return doubleValue;
+            default:
+                return bigValue;
+        }
+    }
+
+    /**
+     * Parses the characters from (inclusive) to to (exclusive), which must form exactly one JSON
+     * number, and returns the kind of the result.
+     * */
+    public int parse(CharSequence s, int from, int to) throws Exception{
+        int n = to - from;
+        char[] t = text(n);
+        if(s instanceof String){
+            ((String) s).getChars(from, to, t, 0);
+        }else{
+            for(int i = 0; i < n; i++){
+                t[i] = s.charAt(from + i);
+            }
+        }
+        return scan(n, from, 0);
+    }
+
+    /**
+     * Same as parse(CharSequence, int, int) for ASCII bytes; offset is added to positions in error
+     * messages.
+     * */
+    public int parse(ByteBuffer s, int from, int to, long offset) throws Exception{
+        int n = to - from;
+        char[] t = text(n);
+        for(int i = 0; i < n; i++){
+            t[i] = (char) s.get(from + i);
+        }
+        return scan(n, from, offset);
+    }
+
+    /**
+     * The scratch array for a number of n chars. Both inputs are copied into it, so that one
+     * scanner serves both; numbers are short, and the copy costs less than reading each char
+     * through an interface.
+     * */
+    private char[] text(int n){
+        if(n > text.length){
+            text = new char[Math.max(n, text.length * 2)];
+        }
+        return text;
+    }
+
+    /**
+     * Scans the n chars in text, the number found at position from (plus offset) of the input.
+     * */
+    private int scan(int n, int from, long offset) throws Exception{
+        char[] s = text;
+        int to = n;
+        int i = 0;
+        boolean negative = false;
+        if(i < to && s[i] == '-'){
+            negative = true;
+            i++;
+        }
+        if(i >= to || !isDigit(s[i])){
+            throw malformed(n, from, offset);
+        }
+        long digits = 0;
+        int significant = 0;
+        int exponent = 0;
+        boolean truncated = false;
+        boolean integral = true;
+        if(s[i] == '0'){
+            i++;
+        }else{
+            while(i < to){
+                int d = s[i] - '0';
+                if(d < 0 || d > 9){
+                    break;
+                }
+                if(significant < 19){
+                    digits = digits * 10 + d;
+                }else{
+                    exponent++;
+                    truncated |= d != 0;
+                }
+                significant++;
+                i++;
+            }
+        }
+        int integerDigits = significant;
+        if(i < to && s[i] == '.'){
+            integral = false;
+            i++;
+            int start = i;
+            while(i < to){
+                int d = s[i] - '0';
+                if(d < 0 || d > 9){
+                    break;
+                }
+                if(significant < 19){
+                    if(digits != 0 || d != 0){
+                        significant++;
+                    }
+                    digits = digits * 10 + d;
+                    exponent--;
+                }else{
+                    truncated |= d != 0;
+                }
+                i++;
+            }
+            if(i == start){
+                throw malformed(n, from, offset);
+            }
+        }
+        if(i < to && (s[i] == 'e' || s[i] == 'E')){
+            integral = false;
+            i++;
+            boolean negativeExponent = false;
+            if(i < to && (s[i] == '-' || s[i] == '+')){
+                negativeExponent = s[i] == '-';
+                i++;
+            }
+            int start = i;
+            int e = 0;
+            while(i < to){
+                int d = s[i] - '0';
+                if(d < 0 || d > 9){
+                    break;
+                }
+                if(e < 100000){
+                    e = e * 10 + d;
+                }
+                i++;
+            }
+            if(i == start){
+                throw malformed(n, from, offset);
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+        if(i != to){
+            throw malformed(n, from, offset);
+        }
+        if(integral){
+            if(integer(negative, digits, integerDigits)){
+                return kind;
+            }
+            bigValue = new BigInteger(new String(s, 0, n));
+            return kind = BIG_INTEGER;
+        }
+        double d = truncated ? Double.NaN : toDouble(negative, digits, exponent);
+        if(Double.isNaN(d)){
+            d = Double.parseDouble(new String(s, 0, n));
+        }
+        doubleValue = d;
+        return kind = DOUBLE;
+    }
+
+    /**
+     * Stores an integer of count digits as INT or LONG; false if it does not fit in a long.
+     * */
+    boolean integer(boolean negative, long digits, int count){
+        if(count <= 19 && (digits >= 0 || (negative && digits == Long.MIN_VALUE))){
+            long v = negative ? -digits : digits;
+            longValue = v;
+            kind = v == (int) v ? INT : LONG;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The double closest to (negative ? -1 : 1) * digits * 10^exponent, or NaN if it cannot be
+     * decided without going back to the decimal text.
+     * */
+    static double toDouble(boolean negative, long digits, int exponent){
+        if(digits == 0){
+            return negative ? -0.0 : 0.0;
+        }
+        if(digits >= 0 && digits <= (1L << 53) && exponent >= -22 && exponent <= 22){
+            double d = (double) digits;
+            d = exponent < 0 ? d / POWERS_OF_TEN[-exponent] : d * POWERS_OF_TEN[exponent];
+            return negative ? -d : d;
+        }
+        return eiselLemire(negative, digits, exponent);
+    }
+
+    /**
+     * Daniel Lemire, "Number Parsing at a Gigabyte per Second", 2021, after fast_float: multiplies
+     * the normalized digits by a 128-bit approximation of 5^exponent and keeps the top 54 bits.
+     * */
+    static double eiselLemire(boolean negative, long w, int q){
+        if(q < SMALLEST_POWER){
+            return negative ? -0.0 : 0.0;
+        }
+        if(q > LARGEST_POWER){
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+        int index = q - SMALLEST_POWER;
+        long low = w * POWERS_OF_FIVE_HIGH[index];
+        long high = unsignedMultiplyHigh(w, POWERS_OF_FIVE_HIGH[index]);
+        if((high & 0x1FF) == 0x1FF){
+            long second = unsignedMultiplyHigh(w, POWERS_OF_FIVE_LOW[index]);
+            long sum = low + second;
+            if(Long.compareUnsigned(sum, second) < 0){
+                high++;
+            }
+            low = sum;
+        }
+        if(low == -1L && (q < -27 || q > 55)){
+            return Double.NaN;
+        }
+        int upperBit = (int) (high >>> 63);
+        long mantissa = high >>> (upperBit + 9);
+        int power2 = power(q) + upperBit - lz + 1023;
+        if(power2 <= 0){
+            return Double.NaN;
+        }
+        if(Long.compareUnsigned(low, 1) <= 0 && q >= -4 && q <= 23 && (mantissa & 3) == 1
+                && (mantissa << (upperBit + 9)) == high){
+            mantissa &= ~1L;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if(mantissa >= (2L << 52)){
+            mantissa = 1L << 52;
+            power2++;
+        }
+        mantissa &= ~(1L << 52);
+        if(power2 >= 0x7FF){
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        double d = Double.longBitsToDouble(mantissa | ((long) power2 << 52));
+        return negative ? -d : d;
+    }
+
+    /** floor(log2(10^q)) + 63 */
+    static int power(int q){
+        return (((152170 + 65536) * q) >> 16) + 63;
+    }
+
+    static long unsignedMultiplyHigh(long x, long y){
+        long x0 = x & 0xFFFFFFFFL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xFFFFFFFFL;
+        long y1 = y >>> 32;
+        long p01 = x0 * y1;
+        long middle = x1 * y0 + ((x0 * y0) >>> 32) + (p01 & 0xFFFFFFFFL);
+        return x1 * y1 + (middle >>> 32) + (p01 >>> 32);
+    }
+
+    static boolean isDigit(char c){
+        return c >= '0' && c <= '9';
+    }
+
+    Exception malformed(int n, int from, long offset){
+        return new Exception("Malformed number '" + new String(text, 0, n) + "' at position " + (offset + from) + ".");
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compiled path for SimpleJSONLoader.select(): member names separated by dots, with array
+ * indexes in brackets and '*' matching every member or element, e.g.
+ * result.product_infos.mostGeneralScoreProductBo.price, hotels[0].result.city or hotels[*].name.
+ * A leading '$' is allowed, and names that are not plain identifiers can be quoted as ['a b'].
+ * */
+public class JSONPath {
+
+    static final int ANY = -1;
+
+    /**
+     * Name of a step matching every member; compared by identity, so a quoted ['*'] still means
+     * a member literally named '*'.
+     * */
+    static final String ANY_MEMBER = "*";
+
+    final String path;
+
+    /**
+     * Member name of each step, or null for an array step.
+     * */
+    final String[] names;
+
+    /**
+     * Element index of each array step, or ANY.
+     * */
+    final int[] indexes;
+
+    final boolean wildcard;
+
+
+    JSONPath(String path, String[] names, int[] indexes){
+        this.path = path;
+        this.names = names;
+        this.indexes = indexes;
+        boolean wildcard = false;
+        for(int i = 0; i < names.length; i++){
+            if(names[i] == null ? indexes[i] == ANY : names[i] == ANY_MEMBER){
+                wildcard = true;
+            }
+        }
+        this.wildcard = wildcard;
+    }
+
+    public static JSONPath compile(String path){
+        List<String> names = new ArrayList<>();
+        List<Integer> indexes = new ArrayList<>();
+        int i = 0;
+        int n = path.length();
+        if(i < n && path.charAt(i) == '$'){
+            i++;
+        }
+        boolean first = true;
+        while(i < n){
+            char c = path.charAt(i);
+            if(c == '['){
+                int close = path.indexOf(']', i);
+                if(close < 0){
+                    throw new IllegalArgumentException("Unclosed '[' at " + i + " in path: " + path);
+                }
+                String inner = path.substring(i + 1, close).trim();
+                if(inner.length() >= 2 && (inner.charAt(0) == '\'' || inner.charAt(0) == '"')
+                        && inner.charAt(inner.length() - 1) == inner.charAt(0)){
+                    names.add(inner.substring(1, inner.length() - 1));
+                    indexes.add(ANY);
+                }else if(inner.equals("*")){
+                    names.add(null);
+                    indexes.add(ANY);
+                }else{
+                    try{
+                        int index = Integer.parseInt(inner);
+                        if(index < 0){
+                            throw new NumberFormatException();
+                        }
+                        names.add(null);
+                        indexes.add(index);
+                    }catch(NumberFormatException e){
+                        throw new IllegalArgumentException("Bad array index '" + inner + "' in path: " + path);
+                    }
+                }
+                i = close + 1;
+            }else{
+                if(c == '.'){
+                    i++;
+                }else if(!first){
+                    throw new IllegalArgumentException("Expect '.' or '[' at " + i + " in path: " + path);
+                }
+                int end = i;
+                while(end < n && path.charAt(end) != '.' && path.charAt(end) != '['){
+                    end++;
+                }
+                if(end == i){
+                    throw new IllegalArgumentException("Empty member name at " + i + " in path: " + path);
+                }
+                String name = path.substring(i, end);
+                names.add(name.equals("*") ? ANY_MEMBER : name);
+                indexes.add(ANY);
+                i = end;
+            }
+            first = false;
+        }
+        int[] steps = new int[indexes.size()];
+        for(int k = 0; k < steps.length; k++){
+            steps[k] = indexes.get(k);
+        }
+        return new JSONPath(path, names.toArray(new String[0]), steps);
+    }
+
+    public int length(){
+        return names.length;
+    }
+
+    /**
+     * Whether the path can match more than one value.
+     * */
+    public boolean hasWildcard(){
+        return wildcard;
+    }
+
+    @Override
+    public String toString(){
+        return path;
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The set of fields SimpleJSONLoader keeps when a projection is set, as a tree of member names.
+ *
+ * Paths use the JSONPath syntax, but arrays are transparent: a path applies to every element of
+ * the arrays it passes through, so "hotels.result.city" and "hotels[*].result.city" are the same.
+ * '*' matches any member. A member named by a whole path is kept with everything below it; a
+ * member on the way to one is kept only if it is an object or array, and is projected in turn.
+ * */
+public class JSONProjection {
+
+    Map<String, JSONProjection> members;
+
+    JSONProjection anyMember;
+
+    /**
+     * Whether the value is kept whole.
+     * */
+    boolean whole;
+
+
+    JSONProjection(){
+    }
+
+    public static JSONProjection compile(String... paths){
+        return compile(Arrays.asList(paths));
+    }
+
+    public static JSONProjection compile(Collection<String> paths){
+        JSONProjection root = new JSONProjection();
+        for(String path : paths){
+            JSONPath steps = JSONPath.compile(path);
+            JSONProjection node = root;
+            for(int i = 0; i < steps.length(); i++){
+                String name = steps.names[i];
+                if(name == null){
+                    if(steps.indexes[i] != JSONPath.ANY){
+                        throw new IllegalArgumentException("A projection cannot pick single array elements: " + path);
+                    }
+                    continue;
+                }
+                node = node.add(name);
+            }
+            node.whole = true;
+        }
+        root.mergeWildcards();
+        return root;
+    }
+
+    JSONProjection add(String name){
+        if(name == JSONPath.ANY_MEMBER){
+            if(anyMember == null){
+                anyMember = new JSONProjection();
+            }
+            return anyMember;
+        }
+        if(members == null){
+            members = new HashMap<>();
+        }
+        return members.computeIfAbsent(name, k -> new JSONProjection());
+    }
+
+    /**
+     * Copies what '*' selects into the named members next to it, so that member() only has to
+     * look one node up.
+     * */
+    void mergeWildcards(){
+        if(anyMember != null){
+            anyMember.mergeWildcards();
+            if(members != null){
+                for(JSONProjection member : members.values()){
+                    member.merge(anyMember);
+                }
+            }
+        }
+        if(members != null){
+            for(JSONProjection member : members.values()){
+                member.mergeWildcards();
+            }
+        }
+    }
+
+    void merge(JSONProjection other){
+        whole |= other.whole;
+        if(other.anyMember != null){
+            add(JSONPath.ANY_MEMBER).merge(other.anyMember);
+        }
+        if(other.members != null){
+            for(Map.Entry<String, JSONProjection> e : other.members.entrySet()){
+                add(e.getKey()).merge(e.getValue());
+            }
+        }
+    }
+
+    /**
+     * The projection of the member named key, or null if the member is dropped.
+     * */
+    JSONProjection member(String key){
+        if(members != null){
+            JSONProjection member = members.get(key);
+            if(member != null){
+                return member;
+            }
+        }
+        return anyMember;
+    }
+}
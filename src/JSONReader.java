@@ -0,0 +1,601 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull parser reading JSON token by token from a Reader or an InputStream.
+ *
+ * Input goes through a fixed-size buffer that is refilled as it drains, so memory does not grow
+ * with the size of the document: only the nesting stack and the values actually read are kept.
+ * Several top level values may follow each other (e.g. one object per line).
+ *
+ * <pre>
+ *     reader.beginObject();
+ *     while(reader.hasNext()){
+ *         String name = reader.nextName();
+ *         if(name.equals("price")) price = reader.nextNumber();
+ *         else reader.skipValue();
+ *     }
+ *     reader.endObject();
+ * </pre>
+ * */
+public class JSONReader implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    static final int EMPTY_DOCUMENT = 0;
+    static final int EMPTY_OBJECT = 1;
+    static final int NONEMPTY_OBJECT = 2;
+    static final int DANGLING_NAME = 3;
+    static final int EMPTY_ARRAY = 4;
+    static final int NONEMPTY_ARRAY = 5;
+
+    Reader in;
+
+    char[] buf;
+
+    int pos;
+
+    int limit;
+
+    /** Position in the whole input of buf[0]. */
+    long offset;
+
+    int[] stack = new int[32];
+
+    int stackSize = 1;
+
+    JSONToken peeked;
+
+    Object value;
+
+    StringBuilder scratch = new StringBuilder();
+
+    JSONNumberParser numbers = new JSONNumberParser();
+
+    int maxDepth = SimpleJSONLoader.DEFAULT_MAX_DEPTH;
+
+    int lastObjectSize;
+
+
+    public JSONReader(Reader in){
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JSONReader(Reader in, int bufferSize){
+        if(bufferSize < 8){
+            throw new IllegalArgumentException("bufferSize must be at least 8: " + bufferSize);
+        }
+        this.in = in;
+        this.buf = new char[bufferSize];
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Reads UTF-8 encoded JSON.
+     * */
+    public JSONReader(InputStream in){
+        this(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public void setMaxDepth(int maxDepth){
+        if(maxDepth < 1){
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Position in the input of the next unread character.
+     * */
+    public long position(){
+        return offset + pos;
+    }
+
+    /**
+     * Returns the type of the next token without consuming it.
+     * */
+    public JSONToken peek() throws Exception{
+        if(peeked != null){
+            return peeked;
+        }
+        int scope = stack[stackSize - 1];
+        int c;
+        switch (scope){
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhiteSpace();
+                if(c == ']'){
+                    pos++;
+                    return peeked = JSONToken.END_ARRAY;
+                }
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhiteSpace();
+                if(c == ']'){
+                    pos++;
+                    return peeked = JSONToken.END_ARRAY;
+                }
+                if(c != ','){
+                    throw mismatch("',' or ']'", c);
+                }
+                pos++;
+                c = nextNonWhiteSpace();
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhiteSpace();
+                if(c == '}'){
+                    pos++;
+                    return peeked = JSONToken.END_OBJECT;
+                }
+                if(scope == NONEMPTY_OBJECT){
+                    if(c != ','){
+                        throw mismatch("',' or '}'", c);
+                    }
+                    pos++;
+                    c = nextNonWhiteSpace();
+                }
+                if(c != '"'){
+                    throw mismatch("'\"'", c);
+                }
+                pos++;
+                stack[stackSize - 1] = DANGLING_NAME;
+                return peeked = JSONToken.NAME;
+            case DANGLING_NAME:
+                c = nextNonWhiteSpace();
+                if(c != ':'){
+                    throw mismatch("':'", c);
+                }
+                pos++;
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                c = nextNonWhiteSpace();
+                break;
+            default:
+                c = nextNonWhiteSpace();
+                if(c == -1){
+                    return peeked = JSONToken.END_DOCUMENT;
+                }
+        }
+        return peeked = peekValue(c);
+    }
+
+    JSONToken peekValue(int c) throws Exception{
+        switch (c){
+            case '{':
+                pos++;
+                return JSONToken.BEGIN_OBJECT;
+            case '[':
+                pos++;
+                return JSONToken.BEGIN_ARRAY;
+            case '"':
+                pos++;
+                return JSONToken.STRING;
+            case 't':
+            case 'f':
+                return JSONToken.BOOLEAN;
+            case 'n':
+                return JSONToken.NULL;
+            default:
+                if(c == '-' || (c >= '0' && c <= '9')){
+                    return JSONToken.NUMBER;
+                }
+                throw mismatch("a value", c);
+        }
+    }
+
+    /**
+     * Consumes the next token and returns its type. The value of NAME, STRING, NUMBER and BOOLEAN
+     * tokens is then available from getValue().
+     * */
+    public JSONToken nextToken() throws Exception{
+        JSONToken token = peek();
+        value = null;
+        switch (token){
+            case BEGIN_OBJECT:
+                beginObject();
+                break;
+            case END_OBJECT:
+                endObject();
+                break;
+            case BEGIN_ARRAY:
+                beginArray();
+                break;
+            case END_ARRAY:
+                endArray();
+                break;
+            case NAME:
+                value = nextName();
+                break;
+            case STRING:
+                value = nextString();
+                break;
+            case NUMBER:
+                value = nextNumber();
+                break;
+            case BOOLEAN:
+                value = nextBoolean();
+                break;
+            case NULL:
+                nextNull();
+                break;
+            default:
+                break;
+        }
+        return token;
+    }
+
+    /**
+     * The value of the token last returned by nextToken(), or null for structural tokens.
+     * */
+    public Object getValue(){
+        return value;
+    }
+
+    public boolean hasNext() throws Exception{
+        JSONToken token = peek();
+        return token != JSONToken.END_OBJECT && token != JSONToken.END_ARRAY && token != JSONToken.END_DOCUMENT;
+    }
+
+    public void beginObject() throws Exception{
+        consume(JSONToken.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws Exception{
+        consume(JSONToken.END_OBJECT);
+        stackSize--;
+    }
+
+    public void beginArray() throws Exception{
+        consume(JSONToken.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws Exception{
+        consume(JSONToken.END_ARRAY);
+        stackSize--;
+    }
+
+    public String nextName() throws Exception{
+        consume(JSONToken.NAME);
+        return readString();
+    }
+
+    public String nextString() throws Exception{
+        consume(JSONToken.STRING);
+        return readString();
+    }
+
+    public Number nextNumber() throws Exception{
+        consume(JSONToken.NUMBER);
+        return readNumber();
+    }
+
+    public boolean nextBoolean() throws Exception{
+        consume(JSONToken.BOOLEAN);
+        if(buf[pos] == 't'){
+            readLiteral("true");
+            return true;
+        }
+        readLiteral("false");
+        return false;
+    }
+
+    public void nextNull() throws Exception{
+        consume(JSONToken.NULL);
+        readLiteral("null");
+    }
+
+    /**
+     * Skips the next value, including everything nested in it, without materializing any of it.
+     * */
+    public void skipValue() throws Exception{
+        int count = 0;
+        do{
+            JSONToken token = peek();
+            switch (token){
+                case BEGIN_OBJECT:
+                    beginObject();
+                    count++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    count++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    if(count == 0){
+                        throw new Exception("No value to skip at position " + position() + ", found " + token + ".");
+                    }
+                    if(token == JSONToken.END_OBJECT){
+                        endObject();
+                    }else{
+                        endArray();
+                    }
+                    count--;
+                    break;
+                case NAME:
+                case STRING:
+                    peeked = null;
+                    skipString();
+                    break;
+                case NUMBER:
+                    peeked = null;
+                    skipNumber();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                default:
+                    throw new Exception("No value to skip at position " + position() + ", found " + token + ".");
+            }
+        }while(count > 0);
+    }
+
+    /**
+     * Reads the next value into the same Map/List tree SimpleJSONLoader builds.
+     * */
+    public Object readValue() throws Exception{
+        switch (peek()){
+            case BEGIN_OBJECT:
+                beginObject();
+                Map<String,Object> map = SimpleJSONLoader.newObjectMap(lastObjectSize);
+                while(hasNext()){
+                    String key = nextName();
+                    map.put(key, readValue());
+                }
+                endObject();
+                lastObjectSize = map.size();
+                return map;
+            case BEGIN_ARRAY:
+                beginArray();
+                List<Object> list = new ArrayList<>();
+                while(hasNext()){
+                    list.add(readValue());
+                }
+                endArray();
+                return list;
+            case STRING:
+                return nextString();
+            case NUMBER:
+                return nextNumber();
+            case BOOLEAN:
+                return nextBoolean();
+            case NULL:
+                nextNull();
+                return null;
+            default:
+                throw new Exception("Expected a value at position " + position() + ", found " + peek() + ".");
+        }
+    }
+
+    @Override
+    public void close() throws IOException{
+        peeked = null;
+        stackSize = 1;
+        stack[0] = EMPTY_DOCUMENT;
+        in.close();
+    }
+
+    void consume(JSONToken expected) throws Exception{
+        JSONToken token = peek();
+        if(token != expected){
+            throw new Exception("Expected " + expected + " but found " + token + " at position " + position() + ".");
+        }
+        peeked = null;
+    }
+
+    void push(int scope) throws Exception{
+        if(stackSize > maxDepth){
+            throw new Exception("Nesting deeper than " + maxDepth + " levels at position " + position() + ".");
+        }
+        if(stackSize == stack.length){
+            int[] grown = new int[stackSize * 2];
+            System.arraycopy(stack, 0, grown, 0, stackSize);
+            stack = grown;
+        }
+        stack[stackSize++] = scope;
+    }
+
+    /**
+     * Makes at least minimum characters available from pos on, compacting the buffer first.
+     * Returns false when the input ends before that.
+     * */
+    boolean fill(int minimum) throws IOException{
+        if(pos > 0){
+            int remaining = limit - pos;
+            System.arraycopy(buf, pos, buf, 0, remaining);
+            offset += pos;
+            limit = remaining;
+            pos = 0;
+        }
+        while(limit < minimum){
+            int n = in.read(buf, limit, buf.length - limit);
+            if(n == -1){
+                return false;
+            }
+            limit += n;
+        }
+        return true;
+    }
+
+    int nextNonWhiteSpace() throws IOException{
+        while(true){
+            if(pos == limit && !fill(1)){
+                return -1;
+            }
+            char c = buf[pos];
+            if(c == ' ' || c == '\n' || c == '\t' || c == '\r'){
+                pos++;
+            }else{
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Reads a string whose opening quote has been consumed. Strings that lie within the buffer are
+     * copied once; longer ones and strings with escapes go through the scratch builder.
+     * */
+    String readString() throws Exception{
+        StringBuilder sb = null;
+        while(true){
+            char[] b = buf;
+            int p = pos;
+            int l = limit;
+            while(p < l){
+                char c = b[p];
+                if(c == '"'){
+                    String s;
+                    if(sb == null){
+                        s = new String(b, pos, p - pos);
+                    }else{
+                        sb.append(b, pos, p - pos);
+                        s = sb.toString();
+                    }
+                    pos = p + 1;
+                    return s;
+                }
+                if(c == '\\'){
+                    break;
+                }
+                p++;
+            }
+            if(sb == null){
+                sb = scratch;
+                sb.setLength(0);
+            }
+            sb.append(b, pos, p - pos);
+            pos = p;
+            if(p < l){
+                pos++;
+                readEscape(sb);
+            }else if(!fill(1)){
+                throw new Exception("Unterminated string at position " + position() + ".");
+            }
+        }
+    }
+
+    void readEscape(StringBuilder sb) throws Exception{
+        if(pos == limit && !fill(1)){
+            throw new Exception("Unterminated escape at position " + position() + ".");
+        }
+        char e = buf[pos++];
+        switch (e){
+            case '"':  sb.append('"');  break;
+            case '\\': sb.append('\\'); break;
+            case '/':  sb.append('/');  break;
+            case 'b':  sb.append('\b'); break;
+            case 'f':  sb.append('\f'); break;
+            case 'n':  sb.append('\n'); break;
+            case 'r':  sb.append('\r'); break;
+            case 't':  sb.append('\t'); break;
+            case 'u':
+                if(limit - pos < 4 && !fill(4)){
+                    throw new Exception("Truncated unicode escape at position " + position() + ".");
+                }
+                int code = 0;
+                for(int k = 0; k < 4; k++){
+                    int digit = Character.digit(buf[pos + k], 16);
+                    if(digit < 0){
+                        throw new Exception("Illegal unicode escape at position " + position() + ".");
+                    }
+                    code = (code << 4) | digit;
+                }
+                sb.append((char) code);
+                pos += 4;
+                break;
+            default:
+                throw new Exception("Illegal escape '\\" + e + "' at position " + (position() - 1) + ".");
+        }
+    }
+
+    void skipString() throws Exception{
+        while(true){
+            char[] b = buf;
+            int p = pos;
+            int l = limit;
+            while(p < l){
+                char c = b[p];
+                if(c == '"'){
+                    pos = p + 1;
+                    return;
+                }
+                if(c == '\\'){
+                    if(p + 1 == l){
+                        break;
+                    }
+                    p += 2;
+                    continue;
+                }
+                p++;
+            }
+            pos = p;
+            if(!fill(l - p + 1)){
+                throw new Exception("Unterminated string at position " + position() + ".");
+            }
+        }
+    }
+
+    Number readNumber() throws Exception{
+        long start = position();
+        StringBuilder sb = scratch;
+        sb.setLength(0);
+        while(pos < limit || fill(1)){
+            char c = buf[pos];
+            if(!(c >= '0' && c <= '9') && c != '.' && c != 'e' && c != 'E' && c != '-' && c != '+'){
+                break;
+            }
+            sb.append(c);
+            pos++;
+        }
+        try{
+            numbers.parse(sb, 0, sb.length());
+        }catch(Exception e){
+            throw new Exception("Malformed number '" + sb + "' at position " + start + ".");
+        }
+        return numbers.toNumber();
+    }
+
+    void skipNumber() throws Exception{
+        while(pos < limit || fill(1)){
+            char c = buf[pos];
+            if((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '-' || c == '+'){
+                pos++;
+            }else{
+                return;
+            }
+        }
+    }
+
+    void readLiteral(String word) throws Exception{
+        int n = word.length();
+        if(limit - pos < n && !fill(n)){
+            throw new Exception("When parsing word '" + word + "', input ended at position " + position() + ".");
+        }
+        for(int i = 0; i < n; i++){
+            if(buf[pos + i] != word.charAt(i)){
+                throw new Exception("When parsing word '" + word + "', Mismatch: expect '" + word.charAt(i)
+                        + "', but see '" + buf[pos + i] + "' at position " + (position() + i) + ".");
+            }
+        }
+        pos += n;
+    }
+
+    Exception mismatch(String expected, int c){
+        if(c == -1){
+            return new Exception("Mismatch: expect " + expected + ", but the input ended at position " + position() + ".");
+        }
+        return new Exception("Mismatch: expect " + expected + ", but see '" + (char) c + "' at position " + position() + ".");
+    }
+}
@@ -0,0 +1,377 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A loaded JSON document laid out flat: one long[] tape of tagged entries plus one char[] holding
+ * the text of all keys and strings, instead of a tree of maps, lists and boxes.
+ *
+ * Every entry keeps its tag in the top byte and a payload in the lower 56 bits:
+ *
+ *  - '{' and '[' open a container; the payload holds the member or element count (24 bits,
+ *    saturating) above the index of the matching '}' or ']', whose payload points back;
+ *  - ':' is a key and '"' a string, the payload being the offset in the char buffer of the text,
+ *    stored after two chars of length;
+ *  - 'i' and 'l' are integers fitting an int and a long, 'd' a double, each followed by one more
+ *    entry holding the raw value; 'B' is an integer too large for a long, kept as text;
+ *  - 't', 'f' and 'n' are true, false and null.
+ *
+ * Nodes are addressed by their tape index, ROOT being the whole document, and read with the typed
+ * getters; members of an object are key nodes, each followed by its value. Loading fills the two
+ * arrays only, and a tape passed back to SimpleJSONLoader.parseTape(JSONTape) reuses them, so
+ * parsing allocates next to nothing. Navigating allocates nothing either, except for the Strings
+ * handed out by getString and getKey.
+ * */
+public class JSONTape {
+
+    public static final int ROOT = 0;
+
+    static final long PAYLOAD = (1L << 56) - 1;
+
+    static final int MAX_COUNT = (1 << 24) - 1;
+
+    long[] tape = new long[64];
+
+    int length;
+
+    char[] chars = new char[256];
+
+    int charCount;
+
+
+    void clear(){
+        length = 0;
+        charCount = 0;
+    }
+
+    void add(char tag, long payload){
+        if(length == tape.length){
+            tape = Arrays.copyOf(tape, length * 2);
+        }
+        tape[length++] = ((long) tag << 56) | payload;
+    }
+
+    /**
+     * Opens a container and returns its index, for end() to fill in.
+     * */
+    int begin(char tag){
+        add(tag, 0);
+        return length - 1;
+    }
+
+    void end(char tag, int start, int count){
+        tape[start] = (tape[start] & ~PAYLOAD) | ((long) Math.min(count, MAX_COUNT) << 32) | length;
+        add(tag, start);
+    }
+
+    void addNumber(char tag, long bits){
+        add(tag, 0);
+        if(length == tape.length){
+            tape = Arrays.copyOf(tape, length * 2);
+        }
+        tape[length++] = bits;
+    }
+
+    /**
+     * Appends text under the given tag ('"', ':' or 'B').
+     * */
+    void addText(char tag, CharSequence text, int from, int to){
+        int offset = reserve(tag, to - from);
+        if(text instanceof String){
+            ((String) text).getChars(from, to, chars, offset);
+        }else if(text instanceof StringBuilder){
+            ((StringBuilder) text).getChars(from, to, chars, offset);
+        }else{
+            for(int i = from; i < to; i++){
+                chars[offset++] = text.charAt(i);
+            }
+        }
+    }
+
+    private int reserve(char tag, int size){
+        if(charCount + size + 2 > chars.length){
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + size + 2));
+        }
+        add(tag, charCount);
+        chars[charCount] = (char) (size >>> 16);
+        chars[charCount + 1] = (char) size;
+        charCount += size + 2;
+        return charCount - size;
+    }
+
+    char tag(int node){
+        if(node < 0 || node >= length){
+            throw new IndexOutOfBoundsException("No node " + node + " in a tape of " + length + " entries.");
+        }
+        return (char) (tape[node] >>> 56);
+    }
+
+    long payload(int node){
+        return tape[node] & PAYLOAD;
+    }
+
+    public JSONToken type(int node){
+        switch (tag(node)){
+            case '{':
+                return JSONToken.BEGIN_OBJECT;
+            case '[':
+                return JSONToken.BEGIN_ARRAY;
+            case '}':
+                return JSONToken.END_OBJECT;
+            case ']':
+                return JSONToken.END_ARRAY;
+            case ':':
+                return JSONToken.NAME;
+            case '"':
+                return JSONToken.STRING;
+            case 't':
+            case 'f':
+                return JSONToken.BOOLEAN;
+            case 'n':
+                return JSONToken.NULL;
+            default:
+                return JSONToken.NUMBER;
+        }
+    }
+
+    /**
+     * Number of members of an object or elements of an array.
+     * */
+    public int size(int container){
+        expectContainer(container);
+        int count = (int) (payload(container) >>> 32) & MAX_COUNT;
+        if(count < MAX_COUNT){
+            return count;
+        }
+        count = 0;
+        for(int node = first(container); node >= 0; node = next(node)){
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * The first element of an array, or the first key of an object; -1 if it is empty.
+     * */
+    public int first(int container){
+        expectContainer(container);
+        return isEnd(container + 1) ? -1 : container + 1;
+    }
+
+    /**
+     * The node after node in its container, -1 after the last one. For a key this is the next key,
+     * past the member's value.
+     * */
+    public int next(int node){
+        int after = tag(node) == ':' ? skip(node + 1) : skip(node);
+        return isEnd(after) ? -1 : after;
+    }
+
+    /**
+     * The value of the member whose key is at member.
+     * */
+    public int value(int member){
+        expect(member, ':', "a key");
+        return member + 1;
+    }
+
+    /**
+     * The value of the first member of object named name, or -1.
+     * */
+    public int field(int object, String name){
+        expect(object, '{', "an object");
+        for(int member = first(object); member >= 0; member = next(member)){
+            if(textEquals(member, name)){
+                return member + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The element of array at index, or -1.
+     * */
+    public int element(int array, int index){
+        expect(array, '[', "an array");
+        int node = first(array);
+        for(int i = 0; i < index && node >= 0; i++){
+            node = next(node);
+        }
+        return node;
+    }
+
+    public String getKey(int member){
+        expect(member, ':', "a key");
+        return text(member);
+    }
+
+    public String getString(int node){
+        expect(node, '"', "a string");
+        return text(node);
+    }
+
+    public boolean isNull(int node){
+        return tag(node) == 'n';
+    }
+
+    public boolean getBoolean(int node){
+        char tag = tag(node);
+        if(tag != 't' && tag != 'f'){
+            throw unexpected(node, "a boolean");
+        }
+        return tag == 't';
+    }
+
+    public long getLong(int node){
+        switch (tag(node)){
+            case 'i':
+            case 'l':
+                return tape[node + 1];
+            case 'd':
+                double d = Double.longBitsToDouble(tape[node + 1]);
+                if(d != Math.rint(d) || d < Long.MIN_VALUE || d >= 0x1p63){
+                    throw new ArithmeticException("Node " + node + " holds " + d + ", not a long.");
+                }
+                return (long) d;
+            case 'B':
+                return new BigInteger(text(node)).longValueExact();
+            default:
+                throw unexpected(node, "a number");
+        }
+    }
+
+    public int getInt(int node){
+        return Math.toIntExact(getLong(node));
+    }
+
+    public double getDouble(int node){
+        switch (tag(node)){
+            case 'i':
+            case 'l':
+                return tape[node + 1];
+            case 'd':
+                return Double.longBitsToDouble(tape[node + 1]);
+            case 'B':
+                return Double.parseDouble(text(node));
+            default:
+                throw unexpected(node, "a number");
+        }
+    }
+
+    /**
+     * The number at node boxed as SimpleJSONLoader would: Integer, Long, Double or BigInteger.
+     * */
+    public Number getNumber(int node){
+        switch (tag(node)){
+            case 'i':
+                return (int) tape[node + 1];
+            case 'l':
+                return tape[node + 1];
+            case 'd':
+                return Double.longBitsToDouble(tape[node + 1]);
+            case 'B':
+                return new BigInteger(text(node));
+            default:
+                throw unexpected(node, "a number");
+        }
+    }
+
+    /**
+     * Builds the Map/List tree SimpleJSONLoader.parse() would have built for node.
+     * */
+    public Object toObject(int node){
+        switch (tag(node)){
+            case '{':
+                Map<String, Object> map = SimpleJSONLoader.newObjectMap(size(node));
+                for(int member = first(node); member >= 0; member = next(member)){
+                    map.put(text(member), toObject(member + 1));
+                }
+                return map;
+            case '[':
+                List<Object> list = new ArrayList<>(size(node));
+                for(int element = first(node); element >= 0; element = next(element)){
+                    list.add(toObject(element));
+                }
+                return list;
+            case ':':
+            case '"':
+                return text(node);
+            case 't':
+                return true;
+            case 'f':
+                return false;
+            case 'n':
+                return null;
+            default:
+                return getNumber(node);
+        }
+    }
+
+    /**
+     * Approximate bytes held by the tape and the char buffer as filled.
+     * */
+    public long footprint(){
+        return 8L * length + 2L * charCount;
+    }
+
+    int skip(int node){
+        switch (tag(node)){
+            case '{':
+            case '[':
+                return (int) payload(node) + 1;
+            case 'i':
+            case 'l':
+            case 'd':
+                return node + 2;
+            default:
+                return node + 1;
+        }
+    }
+
+    boolean isEnd(int node){
+        if(node >= length){
+            return true;
+        }
+        char tag = tag(node);
+        return tag == '}' || tag == ']';
+    }
+
+    String text(int node){
+        int offset = (int) payload(node);
+        int size = (chars[offset] << 16) | chars[offset + 1];
+        return new String(chars, offset + 2, size);
+    }
+
+    boolean textEquals(int node, String s){
+        int offset = (int) payload(node);
+        int size = (chars[offset] << 16) | chars[offset + 1];
+        if(size != s.length()){
+            return false;
+        }
+        for(int i = 0; i < size; i++){
+            if(chars[offset + 2 + i] != s.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expectContainer(int node){
+        char tag = tag(node);
+        if(tag != '{' && tag != '['){
+            throw unexpected(node, "an object or array");
+        }
+    }
+
+    private void expect(int node, char tag, String what){
+        if(tag(node) != tag){
+            throw unexpected(node, what);
+        }
+    }
+
+    private IllegalStateException unexpected(int node, String what){
+        return new IllegalStateException("Expect " + what + " at node " + node + ", but found " + type(node) + ".");
+    }
+}
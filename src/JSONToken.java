@@ -0,0 +1,17 @@
+/**
+ * The kinds of tokens a JSONReader hands out.
+ * */
+public enum JSONToken {
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    /** An object key. */
+    NAME,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL,
+    /** The input is exhausted. */
+    END_DOCUMENT
+}
@@ -0,0 +1,441 @@
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Writes JSON to a Writer, an OutputStream (as UTF-8) or any Appendable, the counterpart of
+ * JSONReader.
+ *
+ * Output is collected in a fixed-size char buffer that is handed to the sink whenever it fills,
+ * so memory stays bounded however large the document: a response can be streamed to a socket
+ * value by value with the begin/end/name methods, or written whole with value(Object), which
+ * understands Maps, Iterables, arrays, Strings, Numbers, Booleans, enums (by name), other JDK
+ * types such as LocalDate or UUID (as the string of their toString()) and other objects (written
+ * as their non-static, non-transient declared fields, read through the ClassAccessors cache).
+ * SimpleJSONLoader.load(Class) reads such output back into objects.
+ *
+ * <pre>
+ *     writer.beginObject();
+ *     writer.name("hotels").beginArray();
+ *     for(Hotel hotel : hotels) writer.value(hotel);
+ *     writer.endArray();
+ *     writer.endObject();
+ *     writer.flush();
+ * </pre>
+ * */
+public class JSONWriter implements Closeable, Flushable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    static final int EMPTY_DOCUMENT = 0;
+    static final int NONEMPTY_DOCUMENT = 1;
+    static final int EMPTY_OBJECT = 2;
+    static final int NONEMPTY_OBJECT = 3;
+    static final int DANGLING_NAME = 4;
+    static final int EMPTY_ARRAY = 5;
+    static final int NONEMPTY_ARRAY = 6;
+
+    static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    final Appendable out;
+
+    final Writer writer;
+
+    char[] buf;
+
+    int count;
+
+    int[] stack = new int[32];
+
+    int stackSize = 1;
+
+    int maxDepth = SimpleJSONLoader.DEFAULT_MAX_DEPTH;
+
+
+    public JSONWriter(Appendable out){
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public JSONWriter(Appendable out, int bufferSize){
+        if(bufferSize < 16){
+            throw new IllegalArgumentException("bufferSize must be at least 16: " + bufferSize);
+        }
+        this.out = out;
+        this.writer = out instanceof Writer ? (Writer) out : null;
+        this.buf = new char[bufferSize];
+        this.stack[0] = EMPTY_DOCUMENT;
+    }
+
+    public JSONWriter(OutputStream out){
+        this(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * For UTF8JSONWriter, which replaces the char buffer and the sink with its own.
+     * */
+    JSONWriter(){
+        this.out = null;
+        this.writer = null;
+    }
+
+    /**
+     * value written as a JSON String.
+     * */
+    public static String toJSONString(Object value){
+        StringBuilder sb = new StringBuilder();
+        JSONWriter writer = new JSONWriter(sb);
+        try{
+            writer.value(value);
+            writer.flush();
+        }catch(IOException e){
+            throw new IllegalStateException(e);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The fields of type that JSONWriter cannot read and writes as null, by name, with the
+     * exception that setAccessible() or the getter lookup failed with. Empty when every field it
+     * writes is readable.
+     * */
+    public static Map<String, Exception> unreadableFields(Class<?> type){
+        return ClassAccessors.serialized(type).failures();
+    }
+
+    public void setMaxDepth(int maxDepth){
+        if(maxDepth < 1){
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    public JSONWriter beginObject() throws IOException{
+        beforeValue();
+        push(EMPTY_OBJECT);
+        write('{');
+        return this;
+    }
+
+    public JSONWriter endObject() throws IOException{
+        int scope = stack[stackSize - 1];
+        if(scope != EMPTY_OBJECT && scope != NONEMPTY_OBJECT){
+            throw new IllegalStateException("endObject() outside of an object, or after a name.");
+        }
+        stackSize--;
+        write('}');
+        return this;
+    }
+
+    public JSONWriter beginArray() throws IOException{
+        beforeValue();
+        push(EMPTY_ARRAY);
+        write('[');
+        return this;
+    }
+
+    public JSONWriter endArray() throws IOException{
+        int scope = stack[stackSize - 1];
+        if(scope != EMPTY_ARRAY && scope != NONEMPTY_ARRAY){
+            throw new IllegalStateException("endArray() outside of an array.");
+        }
+        stackSize--;
+        write(']');
+        return this;
+    }
+
+    public JSONWriter name(String name) throws IOException{
+        int scope = stack[stackSize - 1];
+        if(scope == NONEMPTY_OBJECT){
+            write(',');
+        }else if(scope != EMPTY_OBJECT){
+            throw new IllegalStateException("name() outside of an object, or right after another name.");
+        }
+        stack[stackSize - 1] = DANGLING_NAME;
+        writeString(name);
+        write(':');
+        return this;
+    }
+
+    public JSONWriter value(String value) throws IOException{
+        if(value == null){
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JSONWriter value(long value) throws IOException{
+        beforeValue();
+        writeRaw(Long.toString(value));
+        return this;
+    }
+
+    public JSONWriter value(double value) throws IOException{
+        beforeValue();
+        writeDouble(value);
+        return this;
+    }
+
+    public JSONWriter value(boolean value) throws IOException{
+        beforeValue();
+        writeRaw(value ? "true" : "false");
+        return this;
+    }
+
+    public JSONWriter nullValue() throws IOException{
+        beforeValue();
+        writeRaw("null");
+        return this;
+    }
+
+    /**
+     * Writes value and everything it contains.
+     * */
+    public JSONWriter value(Object value) throws IOException{
+        if(value == null){
+            return nullValue();
+        }
+        if(value instanceof CharSequence || value instanceof Character){
+            return value(value.toString());
+        }
+        if(value instanceof Number){
+            beforeValue();
+            writeNumber((Number) value);
+            return this;
+        }
+        if(value instanceof Boolean){
+            return value(((Boolean) value).booleanValue());
+        }
+        if(value instanceof Enum){
+            return value(((Enum<?>) value).name());
+        }
+        if(value instanceof Map){
+            beginObject();
+            for(Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()){
+                name(String.valueOf(e.getKey()));
+                value(e.getValue());
+            }
+            return endObject();
+        }
+        if(value instanceof JSONNumberList){
+            return numberList((JSONNumberList) value);
+        }
+        if(value instanceof Iterable){
+            beginArray();
+            for(Object element : (Iterable<?>) value){
+                value(element);
+            }
+            return endArray();
+        }
+        if(value.getClass().isArray()){
+            return array(value);
+        }
+        ClassAccessors accessors = ClassAccessors.serialized(value.getClass());
+        if(accessors.jdkValue){
+            return value(value.toString());
+        }
+        beginObject();
+        for(ClassAccessors.FieldWriter field : accessors.fields){
+            name(field.name);
+            value(field.get(value));
+        }
+        return endObject();
+    }
+
+    private JSONWriter numberList(JSONNumberList list) throws IOException{
+        beginArray();
+        for(int i = 0; i < list.size(); i++){
+            beforeValue();
+            switch (list.kind()){
+                case JSONNumberParser.INT:
+                    writeRaw(Integer.toString(list.getInt(i)));
+                    break;
+                case JSONNumberParser.LONG:
+                    writeRaw(Long.toString(list.getLong(i)));
+                    break;
+                default:
+                    writeDouble(list.getDouble(i));
+            }
+        }
+        return endArray();
+    }
+
+    private JSONWriter array(Object array) throws IOException{
+        beginArray();
+        if(array instanceof int[]){
+            for(int v : (int[]) array){
+                value(v);
+            }
+        }else if(array instanceof long[]){
+            for(long v : (long[]) array){
+                value(v);
+            }
+        }else if(array instanceof double[]){
+            for(double v : (double[]) array){
+                value(v);
+            }
+        }else if(array instanceof char[]){
+            for(char v : (char[]) array){
+                value(String.valueOf(v));
+            }
+        }else{
+            int length = Array.getLength(array);
+            for(int i = 0; i < length; i++){
+                value(Array.get(array, i));
+            }
+        }
+        return endArray();
+    }
+
+    /**
+     * Hands the buffered output to the sink and flushes the sink if it can be flushed.
+     * */
+    @Override
+    public void flush() throws IOException{
+        drain();
+        if(out instanceof Flushable){
+            ((Flushable) out).flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException{
+        flush();
+        if(out instanceof Closeable){
+            ((Closeable) out).close();
+        }
+        if(stackSize != 1){
+            throw new IOException("Incomplete document.");
+        }
+    }
+
+    void beforeValue() throws IOException{
+        int scope = stack[stackSize - 1];
+        switch (scope){
+            case EMPTY_DOCUMENT:
+                stack[stackSize - 1] = NONEMPTY_DOCUMENT;
+                return;
+            case NONEMPTY_DOCUMENT:
+                // several top level values, as in newline-delimited JSON
+                write('\n');
+                return;
+            case EMPTY_ARRAY:
+                stack[stackSize - 1] = NONEMPTY_ARRAY;
+                return;
+            case NONEMPTY_ARRAY:
+                write(',');
+                return;
+            case DANGLING_NAME:
+                stack[stackSize - 1] = NONEMPTY_OBJECT;
+                return;
+            default:
+                throw new IllegalStateException("A value inside an object needs a name() first.");
+        }
+    }
+
+    void push(int scope){
+        if(stackSize > maxDepth){
+            throw new IllegalStateException("Nesting deeper than " + maxDepth + " levels, possibly a cycle.");
+        }
+        if(stackSize == stack.length){
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    void writeNumber(Number n) throws IOException{
+        if(n instanceof Double || n instanceof Float){
+            writeDouble(n.doubleValue());
+        }else if(n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte
+                || n instanceof BigInteger || n instanceof BigDecimal){
+            writeRaw(n.toString());
+        }else{
+            writeDouble(n.doubleValue());
+        }
+    }
+
+    void writeDouble(double d) throws IOException{
+        if(Double.isNaN(d) || Double.isInfinite(d)){
+            throw new IllegalArgumentException("JSON has no representation for " + d + ".");
+        }
+        writeRaw(Double.toString(d));
+    }
+
+    void writeString(String s) throws IOException{
+        write('"');
+        int run = 0;
+        int length = s.length();
+        for(int i = 0; i < length; i++){
+            char c = s.charAt(i);
+            if(c >= 0x20 && c != '"' && c != '\\'){
+                continue;
+            }
+            writeRaw(s, run, i);
+            run = i + 1;
+            write('\\');
+            switch (c){
+                case '"':  write('"');  break;
+                case '\\': write('\\'); break;
+                case '\n': write('n');  break;
+                case '\r': write('r');  break;
+                case '\t': write('t');  break;
+                case '\b': write('b');  break;
+                case '\f': write('f');  break;
+                default:
+                    write('u');
+                    write('0');
+                    write('0');
+                    write(HEX[c >> 4]);
+                    write(HEX[c & 0xF]);
+            }
+        }
+        writeRaw(s, run, length);
+        write('"');
+    }
+
+    void writeRaw(String s) throws IOException{
+        writeRaw(s, 0, s.length());
+    }
+
+    void writeRaw(String s, int from, int to) throws IOException{
+        while(from < to){
+            if(count == buf.length){
+                drain();
+            }
+            int n = Math.min(to - from, buf.length - count);
+            s.getChars(from, from + n, buf, count);
+            count += n;
+            from += n;
+        }
+    }
+
+    void write(char c) throws IOException{
+        if(count == buf.length){
+            drain();
+        }
+        buf[count++] = c;
+    }
+
+    void drain() throws IOException{
+        if(count == 0){
+            return;
+        }
+        if(writer != null){
+            writer.write(buf, 0, count);
+        }else{
+            out.append(CharBuffer.wrap(buf, 0, count));
+        }
+        count = 0;
+    }
+}
@@ -0,0 +1,54 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * A JSON array loaded by SimpleJSONLoader in lazy mode: the offsets of the elements are recorded
+ * while scanning and each element is parsed on first access, like the members of LazyJSONObject.
+ * The list is read-only.
+ * */
+public class LazyJSONArray extends AbstractList<Object> implements RandomAccess {
+
+    final SimpleJSONLoader source;
+
+    int[] starts = new int[8];
+
+    Object[] values;
+
+    int size;
+
+
+    LazyJSONArray(SimpleJSONLoader source){
+        this.source = source;
+    }
+
+    void add(int start){
+        if(size == starts.length){
+            starts = Arrays.copyOf(starts, size * 2);
+        }
+        starts[size++] = start;
+    }
+
+    void seal(){
+        values = new Object[size];
+        Arrays.fill(values, LazyJSONObject.UNREAD);
+    }
+
+    @Override
+    public int size(){
+        return size;
+    }
+
+    @Override
+    public Object get(int i){
+        if(i < 0 || i >= size){
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        Object value = values[i];
+        if(value == LazyJSONObject.UNREAD){
+            value = source.materialize(starts[i]);
+            values[i] = value;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,230 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A JSON object loaded by SimpleJSONLoader in lazy mode.
+ *
+ * Only the keys and the offsets of the member values are recorded while the document is scanned;
+ * a value is parsed the first time it is read and then cached. Nested objects and arrays come back
+ * lazy as well, so reading a few fields of a large document touches little more than the skip
+ * scan. The input was fully validated by that scan, so reading a value never fails. Duplicate keys
+ * behave like Map.put: the last value wins, at the position of the first. The map is read-only
+ * and, like the loader that produced it, not thread-safe.
+ * */
+public class LazyJSONObject extends AbstractMap<String, Object> {
+
+    static final Object UNREAD = new Object();
+
+    /**
+     * Objects with more members than this are looked up through a hash index instead of a linear
+     * scan over the keys.
+     * */
+    static final int MAX_LINEAR_MEMBERS = 8;
+
+    final SimpleJSONLoader source;
+
+    String[] keys;
+
+    int[] starts;
+
+    Object[] values;
+
+    int size;
+
+    Map<String, Integer> index;
+
+    boolean deduplicated;
+
+
+    LazyJSONObject(SimpleJSONLoader source, int expectedSize){
+        this.source = source;
+        int capacity = Math.max(expectedSize, 4);
+        keys = new String[capacity];
+        starts = new int[capacity];
+    }
+
+    void add(String key, int start){
+        if(size == keys.length){
+            keys = Arrays.copyOf(keys, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+        }
+        keys[size] = key;
+        starts[size] = start;
+        size++;
+    }
+
+    void seal(){
+        values = new Object[size];
+        Arrays.fill(values, UNREAD);
+    }
+
+    @Override
+    public int size(){
+        deduplicate();
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key){
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public Object get(Object key){
+        int i = indexOf(key);
+        return i < 0 ? null : value(i);
+    }
+
+    /**
+     * Whether the value of key has already been parsed.
+     * */
+    public boolean isLoaded(String key){
+        int i = indexOf(key);
+        return i >= 0 && values[i] != UNREAD;
+    }
+
+    int indexOf(Object key){
+        if(!(key instanceof String)){
+            return -1;
+        }
+        if(size > MAX_LINEAR_MEMBERS){
+            deduplicate();
+        }
+        if(index != null){
+            Integer i = index.get(key);
+            return i == null ? -1 : i;
+        }
+        for(int i = size - 1; i >= 0; i--){
+            if(keys[i] == key || keys[i].equals(key)){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    Object value(int i){
+        Object value = values[i];
+        if(value == UNREAD){
+            value = source.materialize(starts[i]);
+            values[i] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Builds the key index and folds duplicate keys into the position of their first occurrence.
+     * */
+    void deduplicate(){
+        if(deduplicated){
+            return;
+        }
+        deduplicated = true;
+        if(size <= 1){
+            return;
+        }
+        Map<String, Integer> positions = new HashMap<>((int) (size / 0.75f) + 1);
+        int kept = 0;
+        for(int i = 0; i < size; i++){
+            Integer first = positions.get(keys[i]);
+            if(first != null){
+                starts[first] = starts[i];
+                values[first] = values[i];
+                continue;
+            }
+            positions.put(keys[i], kept);
+            keys[kept] = keys[i];
+            starts[kept] = starts[i];
+            values[kept] = values[i];
+            kept++;
+        }
+        size = kept;
+        if(size > MAX_LINEAR_MEMBERS){
+            index = positions;
+        }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet(){
+        deduplicate();
+        return new AbstractSet<Entry<String, Object>>(){
+            @Override
+            public Iterator<Entry<String, Object>> iterator(){
+                return new Iterator<Entry<String, Object>>(){
+                    int next;
+
+                    @Override
+                    public boolean hasNext(){
+                        return next < size;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next(){
+                        if(next >= size){
+                            throw new NoSuchElementException();
+                        }
+                        return new Member(next++);
+                    }
+                };
+            }
+
+            @Override
+            public int size(){
+                return size;
+            }
+        };
+    }
+
+    /**
+     * An entry that parses its value only when getValue() is called, so iterating over the keys
+     * loads nothing.
+     * */
+    final class Member implements Entry<String, Object> {
+
+        final int i;
+
+        Member(int i){
+            this.i = i;
+        }
+
+        @Override
+        public String getKey(){
+            return keys[i];
+        }
+
+        @Override
+        public Object getValue(){
+            return value(i);
+        }
+
+        @Override
+        public Object setValue(Object value){
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Entry)){
+                return false;
+            }
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            return getKey().equals(e.getKey()) && Objects.equals(getValue(), e.getValue());
+        }
+
+        @Override
+        public int hashCode(){
+            return getKey().hashCode() ^ Objects.hashCode(getValue());
+        }
+
+        @Override
+        public String toString(){
+            return getKey() + "=" + getValue();
+        }
+    }
+}
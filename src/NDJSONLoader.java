@@ -0,0 +1,241 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Loads newline-delimited JSON (one object per line, as in log files) in parallel.
+ *
+ * The input is cut into chunks of about chunkSize bytes, each ending after a newline, and the
+ * chunks are parsed on a ForkJoinPool by UTF8JSONLoaders kept per worker thread, so throughput
+ * grows with the number of cores. Files are memory-mapped chunk by chunk. Blank lines are skipped;
+ * a malformed line fails the whole load with the file position of the error.
+ *
+ * An NDJSONLoader may be shared between threads once configured.
+ * */
+public class NDJSONLoader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+    static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    final ForkJoinPool pool;
+
+    int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    boolean compactNumericArrays;
+
+    int maxDepth = SimpleJSONLoader.DEFAULT_MAX_DEPTH;
+
+    private final ThreadLocal<UTF8JSONLoader> loaders = ThreadLocal.withInitial(() -> new UTF8JSONLoader(new byte[0]));
+
+
+    public NDJSONLoader(){
+        this(ForkJoinPool.commonPool());
+    }
+
+    public NDJSONLoader(ForkJoinPool pool){
+        this.pool = pool;
+    }
+
+    public int getChunkSize(){
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize){
+        if(chunkSize < 1){
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void setCompactNumericArrays(boolean compactNumericArrays){
+        this.compactNumericArrays = compactNumericArrays;
+    }
+
+    public void setMaxDepth(int maxDepth){
+        if(maxDepth < 1){
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * The objects of all lines of the file, in line order.
+     * */
+    public List<Map<String, Object>> load(Path file) throws Exception{
+        List<Map<String, Object>> objects = new ArrayList<>();
+        for(List<Map<String, Object>> chunk : loadChunks(file, null)){
+            objects.addAll(chunk);
+        }
+        return objects;
+    }
+
+    /**
+     * Hands every object to consumer as soon as it is loaded, without keeping them. consumer is
+     * called from the worker threads at the same time: lines of one chunk arrive in order, chunks
+     * in no particular order.
+     * */
+    public void load(Path file, Consumer<? super Map<String, Object>> consumer) throws Exception{
+        loadChunks(file, consumer);
+    }
+
+    /**
+     * The objects of all lines between the buffer's position and limit, in line order.
+     * */
+    public List<Map<String, Object>> load(ByteBuffer input) throws Exception{
+        List<Map<String, Object>> objects = new ArrayList<>();
+        for(List<Map<String, Object>> chunk : loadChunks(input, null)){
+            objects.addAll(chunk);
+        }
+        return objects;
+    }
+
+    public void load(ByteBuffer input, Consumer<? super Map<String, Object>> consumer) throws Exception{
+        loadChunks(input, consumer);
+    }
+
+    List<List<Map<String, Object>>> loadChunks(Path file, Consumer<? super Map<String, Object>> consumer) throws Exception{
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            List<long[]> chunks = split(channel);
+            return run(chunks, chunk -> {
+                long size = chunk[1] - chunk[0];
+                if(size > Integer.MAX_VALUE){
+                    throw new Exception("Line longer than 2 GB at position " + chunk[0] + ".");
+                }
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, chunk[0], size);
+                return loadChunk(bytes, chunk[0], consumer);
+            });
+        }
+    }
+
+    List<List<Map<String, Object>>> loadChunks(ByteBuffer input, Consumer<? super Map<String, Object>> consumer) throws Exception{
+        ByteBuffer all = input.slice();
+        List<long[]> chunks = split(all);
+        return run(chunks, chunk -> {
+            ByteBuffer bytes = all.duplicate();
+            bytes.limit((int) chunk[1]).position((int) chunk[0]);
+            return loadChunk(bytes, chunk[0], consumer);
+        });
+    }
+
+    interface ChunkTask {
+        List<Map<String, Object>> load(long[] chunk) throws Exception;
+    }
+
+    /**
+     * Runs task over the chunks on the pool and returns the results in chunk order.
+     * */
+    private List<List<Map<String, Object>>> run(List<long[]> chunks, ChunkTask task) throws Exception{
+        try{
+            return pool.submit(() -> chunks.parallelStream().map(chunk -> {
+                try{
+                    return task.load(chunk);
+                }catch(Exception e){
+                    throw new CompletionException(e);
+                }
+            }).collect(Collectors.toList())).get();
+        }catch(ExecutionException e){
+            Throwable cause = e.getCause();
+            while(cause instanceof CompletionException && cause.getCause() != null){
+                cause = cause.getCause();
+            }
+            if(cause instanceof Exception){
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Parses the lines of one chunk. Objects go to consumer if there is one, else into the list.
+     * */
+    List<Map<String, Object>> loadChunk(ByteBuffer chunk, long position, Consumer<? super Map<String, Object>> consumer) throws Exception{
+        UTF8JSONLoader loader = loaders.get();
+        loader.setCompactNumericArrays(compactNumericArrays);
+        loader.setMaxDepth(maxDepth);
+        loader.reset(chunk);
+        loader.offset = position;
+        List<Map<String, Object>> objects = new ArrayList<>();
+        ByteBuffer bytes = loader.buf;
+        int end = bytes.limit();
+        int from = 0;
+        try{
+            while(from < end){
+                int to = from;
+                while(to < end && bytes.get(to) != '\n'){
+                    to++;
+                }
+                Map<String, Object> object = loader.parseRange(from, to);
+                if(object != null){
+                    if(consumer != null){
+                        consumer.accept(object);
+                    }else{
+                        objects.add(object);
+                    }
+                }
+                from = to + 1;
+            }
+        }finally{
+            loader.reset(EMPTY);
+        }
+        return objects;
+    }
+
+    /**
+     * Cuts the buffer into [start, end) chunks of about chunkSize bytes, each ending after a newline
+     * or at the end of the input.
+     * */
+    List<long[]> split(ByteBuffer input){
+        List<long[]> chunks = new ArrayList<>();
+        int length = input.limit();
+        int start = 0;
+        while(start < length){
+            int end = (int) Math.min((long) start + chunkSize, length);
+            while(end < length && input.get(end - 1) != '\n'){
+                end++;
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+
+    List<long[]> split(FileChannel channel) throws IOException{
+        List<long[]> chunks = new ArrayList<>();
+        long length = channel.size();
+        ByteBuffer block = ByteBuffer.allocate(8192);
+        long start = 0;
+        while(start < length){
+            long end = Math.min(start + chunkSize, length);
+            while(end < length){
+                block.clear();
+                int n = channel.read(block, end - 1);
+                int newline = -1;
+                for(int i = 0; i < n; i++){
+                    if(block.get(i) == '\n'){
+                        newline = i;
+                        break;
+                    }
+                }
+                if(newline >= 0){
+                    end += newline;
+                    break;
+                }
+                end = Math.min(end + n, length);
+            }
+            chunks.add(new long[]{start, end});
+            start = end;
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,379 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/**
+ * Loads one huge top-level JSON array on all cores.
+ *
+ * The input is cut into chunks of about chunkSize bytes, never right after a backslash, so that no
+ * escape sequence is split. Every chunk is then scanned in parallel on the speculation that it
+ * does not start inside a string, recording its quote parity, its change of bracket depth and the
+ * first comma at each depth. Walking the chunks in order gives the real string state at each cut;
+ * chunks that did start inside a string are scanned again in parallel. With the real depth known,
+ * the first comma of a chunk at depth 1 is a boundary between two elements of the array. The runs
+ * of elements between those boundaries are finally parsed in parallel by UTF8JSONLoaders kept per
+ * worker thread and joined in order.
+ *
+ * A chunk without a boundary (one element larger than a chunk, or deeper nesting than the scan
+ * tracks) is simply parsed together with the previous one. Malformed input is reported like
+ * UTF8JSONLoader does, with the position in the whole input.
+ * */
+public class ParallelJSONLoader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 24;
+
+    /**
+     * Relative depths tracked by the chunk scan: commas nested deeper than this below or above the
+     * depth a chunk starts at are not recorded.
+     * */
+    static final int MAX_RELATIVE_DEPTH = 64;
+
+    static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    final ForkJoinPool pool;
+
+    int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    boolean compactNumericArrays;
+
+    int maxDepth = SimpleJSONLoader.DEFAULT_MAX_DEPTH;
+
+    private final ThreadLocal<UTF8JSONLoader> loaders = ThreadLocal.withInitial(() -> new UTF8JSONLoader(new byte[0]));
+
+
+    public ParallelJSONLoader(){
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelJSONLoader(ForkJoinPool pool){
+        this.pool = pool;
+    }
+
+    public int getChunkSize(){
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize){
+        if(chunkSize < 1){
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    public void setCompactNumericArrays(boolean compactNumericArrays){
+        this.compactNumericArrays = compactNumericArrays;
+    }
+
+    public void setMaxDepth(int maxDepth){
+        if(maxDepth < 1){
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * The elements of the array the file holds, memory-mapped chunk by chunk.
+     * */
+    public List<Object> loadArray(Path file) throws Exception{
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            long length = channel.size();
+            return loadArray(new Input(){
+                @Override
+                long length(){
+                    return length;
+                }
+
+                @Override
+                ByteBuffer map(long from, long to) throws IOException{
+                    if(to - from > Integer.MAX_VALUE){
+                        throw new IOException("Array element longer than 2 GB at position " + from + ".");
+                    }
+                    return channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+                }
+            });
+        }
+    }
+
+    /**
+     * The elements of the array between the buffer's position and limit.
+     * */
+    public List<Object> loadArray(ByteBuffer input) throws Exception{
+        ByteBuffer all = input.slice();
+        return loadArray(new Input(){
+            @Override
+            long length(){
+                return all.limit();
+            }
+
+            @Override
+            ByteBuffer map(long from, long to){
+                ByteBuffer range = all.duplicate();
+                range.limit((int) to).position((int) from);
+                return range.slice();
+            }
+        });
+    }
+
+    List<Object> loadArray(Input input) throws Exception{
+        long length = input.length();
+        List<Chunk> chunks = split(input, length);
+        run(chunks, chunk -> chunk.scan(input, false));
+        List<Chunk> mispredicted = new ArrayList<>();
+        boolean inString = false;
+        for(Chunk chunk : chunks){
+            if(chunk.startsInString != inString){
+                mispredicted.add(chunk);
+            }
+            // a chunk scanned from the other state ends in the other state too
+            inString = chunk.endsInString ^ (chunk.startsInString != inString);
+        }
+        run(mispredicted, chunk -> chunk.scan(input, true));
+        if(inString){
+            throw new Exception("Unterminated string at the end of the input.");
+        }
+
+        long open = -1;
+        long close = -1;
+        int depth = 0;
+        List<long[]> runs = new ArrayList<>();
+        for(Chunk chunk : chunks){
+            if(open < 0 && chunk.open >= 0){
+                open = chunk.open;
+            }
+            if(chunk.close >= 0){
+                close = chunk.close;
+            }
+            long cut = chunk.firstComma(1 - depth);
+            if(open >= 0 && cut > open){
+                runs.add(new long[]{runs.isEmpty() ? open + 1 : runs.get(runs.size() - 1)[1] + 1, cut});
+            }
+            depth += chunk.depthChange;
+        }
+        if(open < 0 || skipWhiteSpace(input, 0, 1) != open){
+            throw new Exception("Mismatch: expect '[' at the start of the input.");
+        }
+        if(depth != 0 || close < 0 || skipWhiteSpace(input, length - 1, -1) != close){
+            throw new Exception("Unbalanced brackets: the input does not end with the ']' closing the array.");
+        }
+        runs.add(new long[]{runs.isEmpty() ? open + 1 : runs.get(runs.size() - 1)[1] + 1, close});
+        boolean single = runs.size() == 1;
+
+        List<List<Object>> parts = run(runs, run -> {
+            UTF8JSONLoader loader = loaders.get();
+            loader.setCompactNumericArrays(compactNumericArrays);
+            loader.setMaxDepth(maxDepth);
+            loader.reset(input.map(run[0], run[1]));
+            loader.offset = run[0];
+            List<Object> elements = new ArrayList<>();
+            try{
+                loader.parseElements(elements, single);
+            }finally{
+                loader.reset(EMPTY);
+            }
+            return elements;
+        });
+        int size = 0;
+        for(List<Object> part : parts){
+            size += part.size();
+        }
+        List<Object> elements = new ArrayList<>(size);
+        for(List<Object> part : parts){
+            elements.addAll(part);
+        }
+        return elements;
+    }
+
+    /**
+     * Cuts [0, length) into chunks of about chunkSize bytes, moving every cut forward past
+     * backslashes so that an escape and the character it escapes stay together.
+     * */
+    List<Chunk> split(Input input, long length) throws IOException{
+        List<Chunk> chunks = new ArrayList<>();
+        long start = 0;
+        while(start < length){
+            long end = Math.min(start + chunkSize, length);
+            while(end < length && input.get(end - 1) == '\\'){
+                end++;
+            }
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    /**
+     * The first position from i on, stepping by step, that holds no white space.
+     * */
+    static long skipWhiteSpace(Input input, long i, int step) throws IOException{
+        while(i >= 0 && i < input.length()){
+            byte c = input.get(i);
+            if(c != ' ' && c != '\n' && c != '\t' && c != '\r'){
+                break;
+            }
+            i += step;
+        }
+        return i;
+    }
+
+    abstract static class Input {
+
+        /**
+         * Bytes around a single-byte read that are mapped with it, for the next reads nearby.
+         * */
+        static final int WINDOW = 4096;
+
+        private ByteBuffer window;
+
+        private long windowStart;
+
+        abstract long length();
+
+        abstract ByteBuffer map(long from, long to) throws IOException;
+
+        /**
+         * The byte at i, read through a small mapped window that split() and skipWhiteSpace()
+         * walk within. For the thread driving the load only.
+         * */
+        byte get(long i) throws IOException{
+            if(window == null || i < windowStart || i >= windowStart + window.limit()){
+                windowStart = Math.max(0, i - WINDOW / 2);
+                window = map(windowStart, Math.min(length(), windowStart + WINDOW));
+            }
+            return window.get((int) (i - windowStart));
+        }
+    }
+
+    interface Task<T, R> {
+        R apply(T t) throws Exception;
+    }
+
+    /**
+     * Applies task to every item on the pool and returns the results in item order.
+     * */
+    private <T, R> List<R> run(List<T> items, Task<T, R> task) throws Exception{
+        if(items.isEmpty()){
+            return new ArrayList<>();
+        }
+        try{
+            return pool.submit(() -> items.parallelStream().map(item -> {
+                try{
+                    return task.apply(item);
+                }catch(Exception e){
+                    throw new CompletionException(e);
+                }
+            }).collect(Collectors.toList())).get();
+        }catch(ExecutionException e){
+            Throwable cause = e.getCause();
+            while(cause instanceof CompletionException && cause.getCause() != null){
+                cause = cause.getCause();
+            }
+            if(cause instanceof Exception){
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * What the scan of one chunk found, for the string state it was scanned from.
+     * */
+    static final class Chunk {
+
+        final long start;
+
+        final long end;
+
+        boolean startsInString;
+
+        boolean endsInString;
+
+        /** Brackets opened minus brackets closed outside of strings. */
+        int depthChange;
+
+        /** Position of the first '[' and of the last ']' outside of strings, or -1. */
+        long open = -1;
+
+        long close = -1;
+
+        /** First comma outside of strings at each depth relative to the chunk start, or -1. */
+        final long[] commas = new long[2 * MAX_RELATIVE_DEPTH + 1];
+
+
+        Chunk(long start, long end){
+            this.start = start;
+            this.end = end;
+        }
+
+        long firstComma(int relativeDepth){
+            if(relativeDepth < -MAX_RELATIVE_DEPTH || relativeDepth > MAX_RELATIVE_DEPTH){
+                return -1;
+            }
+            return commas[relativeDepth + MAX_RELATIVE_DEPTH];
+        }
+
+        Chunk scan(Input input, boolean inString) throws IOException{
+            ByteBuffer bytes = input.map(start, end);
+            Arrays.fill(commas, -1);
+            open = -1;
+            close = -1;
+            startsInString = inString;
+            int depth = 0;
+            int n = bytes.limit();
+            for(int i = 0; i < n; i++){
+                byte c = bytes.get(i);
+                if(inString){
+                    if(c == '\\'){
+                        i++;
+                    }else if(c == '"'){
+                        inString = false;
+                    }
+                    continue;
+                }
+                switch (c){
+                    case '"':
+                        inString = true;
+                        break;
+                    case '\\':
+                        // never valid here, but skipping the next byte like in a string keeps the
+                        // quote parity of the chunk independent of the state it is scanned from
+                        i++;
+                        break;
+                    case '{':
+                        depth++;
+                        break;
+                    case '[':
+                        if(open < 0){
+                            open = start + i;
+                        }
+                        depth++;
+                        break;
+                    case '}':
+                        depth--;
+                        break;
+                    case ']':
+                        close = start + i;
+                        depth--;
+                        break;
+                    case ',':
+                        if(depth >= -MAX_RELATIVE_DEPTH && depth <= MAX_RELATIVE_DEPTH && commas[depth + MAX_RELATIVE_DEPTH] < 0){
+                            commas[depth + MAX_RELATIVE_DEPTH] = start + i;
+                        }
+                        break;
+                    default:
+                }
+            }
+            endsInString = inString;
+            depthChange = depth;
+            return this;
+        }
+    }
+}
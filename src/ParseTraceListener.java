@@ -0,0 +1,51 @@
+/**
+ * Receives the tracing events of SimpleJSONLoader and SimpleJSONParser.
+ *
+ * Events only carry primitives and already existing strings, so no message is built unless a
+ * listener actually formats one. The default listener, {@link #NONE}, ignores everything; use
+ * {@link #STDOUT} to get the old console trace back.
+ * */
+public interface ParseTraceListener {
+
+    /** Ignores all events. */
+    ParseTraceListener NONE = new ParseTraceListener() {};
+
+    /** Prints every event to System.out, the way the parsers used to. */
+    ParseTraceListener STDOUT = new ParseTraceListener() {
+        @Override
+        public void matched(char c, int position){
+            System.out.println("match: '" + c + "', at pos " + position);
+        }
+
+        @Override
+        public void freeMatched(int position){
+            System.out.print("free ");
+        }
+
+        @Override
+        public void whiteSpaceConsumed(int start, int end){
+            System.out.println("consume white space from " + start + " to " + end);
+        }
+
+        @Override
+        public void keyParsed(String key, int position){
+            System.out.println("parse key '" + key + "', at pos " + position);
+        }
+    };
+
+    /** The character c at the given position has been matched. */
+    default void matched(char c, int position){
+    }
+
+    /** Whatever character is at the given position is about to be matched. */
+    default void freeMatched(int position){
+    }
+
+    /** White space between start (inclusive) and end (exclusive) has been skipped. */
+    default void whiteSpaceConsumed(int start, int end){
+    }
+
+    /** An object key ending at the given position has been parsed. */
+    default void keyParsed(String key, int position){
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Byte-at-a-time StructuralIndexer, used when the Vector API is not available.
+ * */
+public class ScalarStructuralIndexer implements StructuralIndexer {
+
+    public static final ScalarStructuralIndexer INSTANCE = new ScalarStructuralIndexer();
+
+    static final StructuralIndexer BEST = findBest();
+
+    @Override
+    public void classify(byte[] input, int from, long[] masks){
+        long quote = 0;
+        long backslash = 0;
+        long whitespace = 0;
+        long operator = 0;
+        for(int i = 0; i < 64; i++){
+            long bit = 1L << i;
+            switch (input[from + i]){
+                case '"':
+                    quote |= bit;
+                    break;
+                case '\\':
+                    backslash |= bit;
+                    break;
+                case ' ':
+                case '\t':
+                case '\n':
+                case '\r':
+                    whitespace |= bit;
+                    break;
+                case '{':
+                case '}':
+                case '[':
+                case ']':
+                case ':':
+                case ',':
+                    operator |= bit;
+                    break;
+                default:
+                    break;
+            }
+        }
+        masks[QUOTE] = quote;
+        masks[BACKSLASH] = backslash;
+        masks[WHITESPACE] = whitespace;
+        masks[OPERATOR] = operator;
+    }
+
+    static StructuralIndexer findBest(){
+        // The vector indexer lives on VectorMask.toLong(), which older JDKs do not compile to a
+        // single instruction; there it is slower than this class.
+        if(javaVersion() < 21){
+            return INSTANCE;
+        }
+        try{
+            Class<?> vector = Class.forName("VectorStructuralIndexer");
+            StructuralIndexer indexer = (StructuralIndexer) vector.getDeclaredConstructor().newInstance();
+            long[] masks = new long[4];
+            indexer.classify(new byte[64], 0, masks);
+            return indexer;
+        }catch(Exception | LinkageError e){
+            return INSTANCE;
+        }
+    }
+
+    static int javaVersion(){
+        String version = System.getProperty("java.specification.version", "1.8");
+        if(version.startsWith("1.")){
+            version = version.substring(2);
+        }
+        try{
+            return Integer.parseInt(version);
+        }catch(NumberFormatException e){
+            return 8;
+        }
+    }
+}
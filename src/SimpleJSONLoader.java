@@ -1,8 +1,28 @@
-import java.lang.reflect.Field;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 /**
  * @Author Siyang Zhang
@@ -15,62 +35,216 @@ public class SimpleJSONLoader {
 
     String input;
 
+    /**
+     * End of the input. Reading at or past it yields END instead of a character, which is what the
+     * "?" appended to every input used to provide.
+     * */
+    int end;
+
+    /**
+     * The input as UTF-8 when it was given as bytes, handed to two-stage mode as is.
+     * */
+    byte[] utf8;
+
+    static final char END = '\0';
+
     String buffer;
 
     Map<String, Object> dataMap;
 
     boolean jumpWhiteSpace;
 
+    StringBuilder scratch = new StringBuilder();
+
+    JSONNumberParser numbers = new JSONNumberParser();
+
+    JSONKeyTable keys;
+
+    /**
+     * Key table of the loader behind a lazy document, which reads keys long after parse() and
+     * so cannot share the table of the loader that created it.
+     * */
+    static final int LAZY_KEY_CAPACITY = 64;
+
+    /**
+     * Set on the loader behind a lazy document once parse() has validated all of it, so that
+     * values read later are passed over without checking them again.
+     * */
+    boolean validated;
+
+    /**
+     * Deepest nesting of objects and arrays accepted before parsing is aborted. Members and elements
+     * are parsed in loops, so only genuine nesting consumes stack.
+     * */
+    public static final int DEFAULT_MAX_DEPTH = 512;
+
+    int maxDepth = DEFAULT_MAX_DEPTH;
+
+    int depth;
+
+    /**
+     * Objects in one document tend to repeat their shape (arrays of records), so the member count of
+     * the last completed object is used to presize the next one.
+     * */
+    static final int MAX_PRESIZED_MEMBERS = 256;
+
+    int lastObjectSize;
+
+    ParseTraceListener trace = ParseTraceListener.NONE;
+
+    boolean twoStage;
+
+    boolean compactNumericArrays;
+
+    boolean lazy;
+
+    JSONProjection projection;
+
+    /**
+     * Position of the next backslash at or after the last string skipped, so that skipString() can
+     * jump to the closing quote with indexOf() while no escape is in the way. Only valid while the
+     * cursor moves forward; materialize() clears it.
+     * */
+    int nextBackslash = -1;
+
+
+    /**
+     * Set by JSONLoader while one of its calls parses on this loader, so that a nested call on the
+     * same thread takes another loader instead of resetting this one.
+     * */
+    boolean inUse;
+
+    /**
+     * Largest scratch buffer release() keeps; a bigger one grown by a large document is dropped
+     * so that idle threads do not pin it.
+     * */
+    static final int MAX_RETAINED_SCRATCH = 1 << 16;
+
+    private static final ThreadLocal<SimpleJSONLoader> LOCAL = ThreadLocal.withInitial(SimpleJSONLoader::new);
+
 
     public SimpleJSONLoader(){
+        this(new JSONKeyTable());
+    }
+
+    private SimpleJSONLoader(JSONKeyTable keys){
         cursor = 0;
         input = "";
         buffer = "";
-        dataMap = new HashMap<>();
+        dataMap = new LinkedHashMap<>();
         jumpWhiteSpace = true;
+        this.keys = keys;
     }
 
     public SimpleJSONLoader(String input){
+        this();
+        reset(input);
+    }
+
+    /**
+     * The loader of the calling thread, for handlers that parse one document after another: reset
+     * it to the next input and parse. Every call hands it out with the default settings and no
+     * input, whatever the last user set on it; results are replaced by the next parse() but not
+     * modified, so they may be kept. Call release() when done so that the thread does not hold on
+     * to the last document between uses.
+     * */
+    public static SimpleJSONLoader threadLocal(){
+        SimpleJSONLoader loader = LOCAL.get().release();
+        loader.trace = ParseTraceListener.NONE;
+        loader.maxDepth = DEFAULT_MAX_DEPTH;
+        loader.twoStage = false;
+        loader.compactNumericArrays = false;
+        loader.lazy = false;
+        loader.projection = null;
+        loader.jumpWhiteSpace = true;
+        return loader;
+    }
+
+    /**
+     * Drops the input, the result and any scratch buffer grown beyond MAX_RETAINED_SCRATCH by a
+     * large document, keeping the settings and the key table. Trees already returned stay valid.
+     * */
+    public SimpleJSONLoader release(){
+        reset("");
+        if(scratch.capacity() > MAX_RETAINED_SCRATCH){
+            scratch = new StringBuilder();
+        }
+        return this;
+    }
+
+    /**
+     * Points the loader at a new document, keeping its settings, scratch buffers and key table. A
+     * String input is used as is; other CharSequences are copied once into a String.
+     * */
+    public SimpleJSONLoader reset(CharSequence input){
+        this.input = input.toString();
+        this.utf8 = null;
+        return rewind();
+    }
+
+    /**
+     * Points the loader at a UTF-8 document like reset(CharSequence). Two-stage mode parses the
+     * bytes directly; the other modes decode them first.
+     * */
+    public SimpleJSONLoader reset(byte[] utf8){
+        this.input = new String(utf8, StandardCharsets.UTF_8);
+        this.utf8 = utf8;
+        return rewind();
+    }
+
+    private SimpleJSONLoader rewind(){
+        end = input.length();
         cursor = 0;
-        this.input = input+"?";
-        buffer = "";
-        dataMap = new HashMap<>();
-        jumpWhiteSpace = true;
+        depth = 0;
+        lastObjectSize = 0;
+        nextBackslash = -1;
+        dataMap = Collections.emptyMap();
+        return this;
     }
+
     public char peek(){
-        return input.charAt(cursor);
+        return cursor < end ? input.charAt(cursor) : END;
+    }
+
+    char at(int i){
+        return i < end ? input.charAt(i) : END;
+    }
+
+    /**
+     * The character at i quoted for an error message, or "end of input".
+     * */
+    String describe(int i){
+        return i < end ? "'" + input.charAt(i) + "'" : "end of input";
     }
 
     public char match(char c) throws Exception{
         if(jumpWhiteSpace) consumeWhiteSpace();
         if(c == peek()){
+            trace.matched(c, cursor);
             cursor ++;
-            System.out.println("match: '" + c + "'");
             if(jumpWhiteSpace) consumeWhiteSpace();
             return c;
         }else{
-            throw new Exception("Mismatch: expect '" + c + "', but see '" + peek() + "'.");
+            throw new Exception("Mismatch: expect '" + c + "', but see " + describe(cursor) + ".");
         }
     }
 
     public char freeMatch() throws Exception{
-        System.out.print("free ");
+        trace.freeMatched(cursor);
         return match(peek());
     }
 
     public void consumeWhiteSpace(){
-        while(peek() == ' ' || peek() == '\n' || peek() == '\t'){
-            if(cursor < input.length() - 1){
-                cursor++;
-            }else{
-                return;
-            }
+        while(cursor < end && isWhiteSpace(input.charAt(cursor))){
+            cursor++;
         }
     }
 
-    public boolean isLetter(char c){
-        int ord = c;
-        return (ord >= 65 && ord <= 90) || (ord >= 97 && ord <= 122);
+    /**
+     * The white space JSON allows between tokens, the same set for every mode of the loader.
+     * */
+    public static boolean isWhiteSpace(char c){
+        return c == ' ' || c == '\n' || c == '\t' || c == '\r';
     }
 
     public boolean isDigit(char c){
@@ -78,165 +252,422 @@ public class SimpleJSONLoader {
         return val >= 0 && val <= 9;
     }
 
-    public boolean isLegal(char c){
-        return isLetter(c) || isDigit(c) || c == '_';
+    public ParseTraceListener getTraceListener(){
+        return trace;
+    }
+
+    public void setTraceListener(ParseTraceListener trace){
+        this.trace = trace == null ? ParseTraceListener.NONE : trace;
+    }
+
+    public int getMaxDepth(){
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth){
+        if(maxDepth < 1){
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    public boolean isTwoStage(){
+        return twoStage;
     }
 
+    /**
+     * Parses through UTF8JSONLoader.parseTwoStage(): the input is indexed in 64-byte blocks first
+     * (SIMD when the Vector API is available) and the tree is then built from that index.
+     * */
+    public void setTwoStage(boolean twoStage){
+        this.twoStage = twoStage;
+    }
+
+    public boolean isCompactNumericArrays(){
+        return compactNumericArrays;
+    }
+
+    /**
+     * Loads arrays of numbers as JSONNumberList, backed by an int[], long[] or double[], instead
+     * of lists of Integer and Double boxes.
+     * */
+    public void setCompactNumericArrays(boolean compactNumericArrays){
+        this.compactNumericArrays = compactNumericArrays;
+    }
+
+    public boolean isLazy(){
+        return lazy;
+    }
+
+    /**
+     * Loads the document as a LazyJSONObject: parse() only validates the input and records where
+     * each value starts, and values are parsed when first read. Takes precedence over two-stage
+     * mode.
+     * */
+    public void setLazy(boolean lazy){
+        this.lazy = lazy;
+    }
+
+    public JSONProjection getProjection(){
+        return projection;
+    }
+
+    /**
+     * Makes parse() load only the fields named by paths (see JSONProjection) and pass over the
+     * rest without building it; the skipped values are still checked. While a projection is set,
+     * parse() loads eagerly whatever setLazy and setTwoStage say. No paths clears the projection.
+     * */
+    public void setProjection(String... paths){
+        setProjection(paths.length == 0 ? null : JSONProjection.compile(paths));
+    }
+
+    public void setProjection(JSONProjection projection){
+        this.projection = projection;
+    }
+
+    /**
+     * Loads the document, an object followed by nothing but white space. Every mode accepts the
+     * same documents.
+     * */
     public void parse() throws Exception{
+        if(projection != null){
+            depth = 0;
+            lastObjectSize = 0;
+            nextBackslash = -1;
+            dataMap = parseJSON(projection);
+            checkEnd(cursor);
+            return;
+        }
+        if(lazy){
+            SimpleJSONLoader source = new SimpleJSONLoader(new JSONKeyTable(LAZY_KEY_CAPACITY));
+            source.input = input;
+            source.end = end;
+            source.maxDepth = maxDepth;
+            source.compactNumericArrays = compactNumericArrays;
+            dataMap = source.scanObject();
+            source.checkEnd(source.cursor);
+            source.validated = true;
+            return;
+        }
+        if(twoStage){
+            UTF8JSONLoader loader = new UTF8JSONLoader(utf8 != null ? utf8 : input.getBytes(StandardCharsets.UTF_8));
+            loader.setMaxDepth(maxDepth);
+            loader.setCompactNumericArrays(compactNumericArrays);
+            loader.parseTwoStage();
+            dataMap = loader.dataMap;
+            return;
+        }
+        depth = 0;
+        lastObjectSize = 0;
         dataMap = parseJSON("");
+        checkEnd(cursor);
     }
 
+    /**
+     * Fails unless only white space follows i, the end of the root value.
+     * */
+    void checkEnd(int i) throws Exception{
+        int j = skipWhiteSpace(i);
+        if(j != end){
+            throw new Exception("Unexpected " + describe(j) + " after the end of the document at position " + j + ".");
+        }
+    }
+
+    private void enterNesting() throws Exception{
+        if(++depth > maxDepth){
+            throw new Exception("Nesting deeper than " + maxDepth + " levels at position " + cursor + ".");
+        }
+    }
 
-    public Map<String,Object> parseJSON(String buffer) throws Exception{
-        Map<String,Object> map = new HashMap<>();
 
+    public Map<String,Object> parseJSON(String buffer) throws Exception{
+        enterNesting();
         match('{');
 
+        Map<String,Object> map = newObjectMap(lastObjectSize);
         if(peek() == '"'){
-            List<Tuple<Object>> tuplelist = parseTupleList(buffer);
-            match('}');
-            for(int i = 0; i < tuplelist.size(); i++){
-                Tuple<Object> tuple = tuplelist.get(i);
-                map.put(tuple.getKey(), tuple.getValue());
-            }
-            return map;
-        }else{
-            match('}');
+            parseMembers(map, buffer);
         }
+        match('}');
 
+        lastObjectSize = map.size();
+        depth--;
         return map;
     }
 
-    public List<Tuple<Object>> parseTupleList(String buffer) throws Exception{
-        Tuple<Object> first = parseTuple(buffer);
-        List<Tuple<Object>> rest = parseTupleListTail(buffer);
-        if(rest.size() == 0){
-            rest.add(first);
-            return rest;
+    public void parseMembers(Map<String,Object> map, String buffer) throws Exception{
+        parseMember(map, buffer);
+        while(peek() == ','){
+            match(',');
+            parseMember(map, buffer);
         }
-        rest.add(0,first);
-        return rest;
-
     }
 
-    public Tuple<Object> parseTuple(String buffer) throws Exception{
-
+    public void parseMember(Map<String,Object> map, String buffer) throws Exception{
         String key = parseKey();
         match(':');
-        Object value = parseValue(buffer);
-        return new Tuple<>(key, value);
+        map.put(key, parseValue(buffer));
     }
 
-    public List<Tuple<Object>> parseTupleListTail(String buffer) throws Exception{
-        String res = "";
-        List<Tuple<Object>> list = new ArrayList<>();
-        if(peek() == ','){
-            match(',');
-            Tuple<Object> tuple = parseTuple(buffer);
-            List<Tuple<Object>> tail =  parseTupleListTail(buffer);
-            if(tail.size() == 0){
-                tail.add(tuple);
-                return tail;
-            }else{
-                tail.add(0,tuple);
-                return tail;
+    Map<String,Object> parseJSON(JSONProjection projection) throws Exception{
+        enterNesting();
+        match('{');
+
+        Map<String,Object> map = newObjectMap(lastObjectSize);
+        if(peek() == '"'){
+            while(true){
+                String key = parseKey();
+                match(':');
+                JSONProjection member = projection.member(key);
+                if(member == null){
+                    cursor = checkValue(cursor);
+                }else if(member.whole){
+                    map.put(key, parseValue(buffer));
+                }else if(peek() == '{'){
+                    map.put(key, parseJSON(member));
+                }else if(peek() == '['){
+                    map.put(key, parseList(member));
+                }else{
+                    cursor = checkValue(cursor);
+                }
+                if(peek() != ','){
+                    break;
+                }
+                match(',');
+            }
+        }
+        match('}');
+
+        lastObjectSize = map.size();
+        depth--;
+        return map;
+    }
+
+    /**
+     * Reads an array on the way to projected fields: objects and arrays in it are projected,
+     * other elements are kept as they are.
+     * */
+    List<Object> parseList(JSONProjection projection) throws Exception{
+        List<Object> list = new ArrayList<>();
+        enterNesting();
+        match('[');
+        if(peek() != ']'){
+            while(true){
+                if(peek() == '{'){
+                    list.add(parseJSON(projection));
+                }else if(peek() == '['){
+                    list.add(parseList(projection));
+                }else{
+                    list.add(parseValue(buffer));
+                }
+                if(peek() != ','){
+                    break;
+                }
+                match(',');
             }
-        }else{
-            return list;
         }
+        match(']');
 
+        depth--;
+        return list;
+    }
+
+    /**
+     * Creates the map backing a JSON object: insertion ordered, and presized for the expected number
+     * of members so that it never rehashes while being filled.
+     * */
+    public static Map<String,Object> newObjectMap(int expectedSize){
+        int size = Math.min(expectedSize, MAX_PRESIZED_MEMBERS);
+        return new LinkedHashMap<>((int) (size / 0.75f) + 1);
     }
 
+    /**
+     * Scans a key like parseString(), hashing it on the way, and returns the canonical instance
+     * from the key table, so repeated field names share one String.
+     * */
     public String parseKey() throws Exception{
-        String key = "";
-        key += match('"');
-        key += parseNonEmptyToken();
-        key += match('"');
-        return key;
+        if(jumpWhiteSpace) consumeWhiteSpace();
+        if(peek() != '"'){
+            throw new Exception("Mismatch: expect '\"', but see " + describe(cursor) + ".");
+        }
+        int start = cursor + 1;
+        int hash = 0;
+        for(int i = start; i < end; i++){
+            char c = input.charAt(i);
+            if(c == '"'){
+                cursor = i + 1;
+                if(jumpWhiteSpace) consumeWhiteSpace();
+                return keys.lookup(input, start, i, hash);
+            }
+            if(c == '\\'){
+                return keys.intern(parseEscapedString(start, i));
+            }
+            hash = 31 * hash + c;
+        }
+        throw new Exception("Unterminated key starting at position " + (start - 1) + ".");
     }
 
     public Object parseValue(String buffer) throws Exception{
-        String res = "";
         char start = peek();
         switch (start){
             case '"':
-                res += match('"');
-                jumpWhiteSpace = false;
-                while(peek() != '"'){
-                    res += freeMatch();
-                }
-                jumpWhiteSpace = true;
-                res += match('"');
-                break;
+                return parseString();
             case '{':
-                res += parseJSON(buffer);
-                break;
+                return parseJSON(buffer);
             case '[':
-                List<Object> list = parseList(buffer);
-                res += list.toString();
-                return list;
+                return parseList(buffer);
             default:
                 if(isDigit(peek()) || peek() == '-'){
-                    res += parseNumber();
+                    return parseNumber();
                 }else{
-                    res += parseReservedWord();
-//                    throw new Exception("Not a correctly formatted value.");
+                    return parseReservedWord();
                 }
+        }
+    }
 
+    /**
+     * Scans a string value. The closing quote is found with a plain index loop and the value is cut
+     * out of the input with a single substring; only strings containing escapes are copied through
+     * the reusable scratch buffer.
+     * */
+    public String parseString() throws Exception{
+        if(jumpWhiteSpace) consumeWhiteSpace();
+        if(peek() != '"'){
+            throw new Exception("Mismatch: expect '\"', but see " + describe(cursor) + ".");
         }
+        int start = cursor + 1;
+        for(int i = start; i < end; i++){
+            char c = input.charAt(i);
+            if(c == '"'){
+                cursor = i + 1;
+                if(jumpWhiteSpace) consumeWhiteSpace();
+                return input.substring(start, i);
+            }
+            if(c == '\\'){
+                return parseEscapedString(start, i);
+            }
+        }
+        throw new Exception("Unterminated string starting at position " + (start - 1) + ".");
+    }
 
-        return res;
+    private String parseEscapedString(int start, int escape) throws Exception{
+        return decodeEscapedString(start, escape).toString();
     }
 
-    public List<Object> parseList(String buffer) throws Exception{
+    /**
+     * Decodes the string from start, whose first escape is at escape, into scratch and moves the
+     * cursor past it.
+     * */
+    private StringBuilder decodeEscapedString(int start, int escape) throws Exception{
+        StringBuilder sb = scratch;
+        sb.setLength(0);
+        sb.append(input, start, escape);
+        int i = escape;
+        while(i < end){
+            char c = input.charAt(i);
+            if(c == '"'){
+                cursor = i + 1;
+                if(jumpWhiteSpace) consumeWhiteSpace();
+                return sb;
+            }
+            if(c != '\\'){
+                sb.append(c);
+                i++;
+                continue;
+            }
+            if(i + 1 >= end){
+                break;
+            }
+            char e = input.charAt(i + 1);
+            i += 2;
+            switch (e){
+                case '"':  sb.append('"');  break;
+                case '\\': sb.append('\\'); break;
+                case '/':  sb.append('/');  break;
+                case 'b':  sb.append('\b'); break;
+                case 'f':  sb.append('\f'); break;
+                case 'n':  sb.append('\n'); break;
+                case 'r':  sb.append('\r'); break;
+                case 't':  sb.append('\t'); break;
+                case 'u':
+                    if(i + 4 > end){
+                        throw new Exception("Truncated unicode escape at position " + (i - 2) + ".");
+                    }
+                    int code = 0;
+                    for(int k = 0; k < 4; k++){
+                        int digit = Character.digit(input.charAt(i + k), 16);
+                        if(digit < 0){
+                            throw new Exception("Illegal unicode escape at position " + (i - 2) + ".");
+                        }
+                        code = (code << 4) | digit;
+                    }
+                    sb.append((char) code);
+                    i += 4;
+                    break;
+                default:
+                    throw new Exception("Illegal escape '\\" + e + "' at position " + (i - 2) + ".");
+            }
+        }
+        throw new Exception("Unterminated string starting at position " + (start - 1) + ".");
+    }
+
+    public List<?> parseList(String buffer) throws Exception{
 
         List<Object> list = new ArrayList<>();
+        enterNesting();
         match('[');
         if(peek() == ']'){
             match(']');
+            depth--;
             return list;
         }
-        Object value = parseValue(buffer);
-        list.add(value);
-        parseListTail(list);
+        if(compactNumericArrays && isNumberStart(peek())){
+            int first = cursor;
+            JSONNumberList compact = parseNumberList();
+            if(compact != null){
+                depth--;
+                return compact;
+            }
+            cursor = first;
+        }
+        list.add(parseValue(buffer));
+        while(peek() == ','){
+            match(',');
+            list.add(parseValue(buffer));
+        }
         match(']');
 
+        depth--;
         return list;
     }
 
-
-
-    public String parseListTail(List<Object> list) throws Exception{
-
-        char start = peek();
-        String res = "";
-        if(start == ','){
+    /**
+     * Reads the elements of an array starting with a number into a JSONNumberList. Returns null
+     * as soon as a value turns up that does not fit, for parseList to read the array again from
+     * its first element as an ordinary list, so that every element keeps the type it has there.
+     * */
+    JSONNumberList parseNumberList() throws Exception{
+        JSONNumberList compact = new JSONNumberList();
+        while(true){
+            scanNumber();
+            if(!compact.add(numbers)){
+                return null;
+            }
+            if(peek() != ','){
+                break;
+            }
             match(',');
-            list.add(parseValue(buffer));
-            parseListTail(list);
-        }else{
-            return "";
-        }
-        return res;
-    }
-
-    public String parseToken() throws Exception{
-        String token = "";
-        jumpWhiteSpace = false;
-        while(isLegal(peek()) || peek() == ' '){
-            token += freeMatch();
+            if(!isNumberStart(peek())){
+                return null;
+            }
         }
-        jumpWhiteSpace = true;
-        return token;
+        match(']');
+        compact.trim();
+        return compact;
     }
 
-    public String parseNonEmptyToken() throws Exception{
-        String res = parseToken();
-        if(res.length() == 0){
-            throw new Exception("Find an empty token");
-        }else{
-            return res;
-        }
+    public boolean isNumberStart(char c){
+        return isDigit(c) || c == '-';
     }
 
     public Object parseReservedWord() throws Exception{
@@ -278,70 +709,1116 @@ public class SimpleJSONLoader {
     }
 
     public Number parseNumber() throws Exception{
-        String num = "";
-        while(isDigit(peek()) || peek() == '.' || peek() == '-'){
-            num += freeMatch();
+        scanNumber();
+        return numbers.toNumber();
+    }
+
+    /**
+     * Parses the number at the cursor into numbers without boxing it and returns its kind
+     * (JSONNumberParser.INT, LONG, DOUBLE or BIG_INTEGER).
+     * */
+    public int scanNumber() throws Exception{
+        int start = cursor;
+        int i = start;
+        while(i < end && isNumberChar(input.charAt(i))){
+            i++;
+        }
+        int kind = numbers.parse(input, start, i);
+        cursor = i;
+        if(jumpWhiteSpace) consumeWhiteSpace();
+        return kind;
+    }
+
+    public boolean isNumberChar(char c){
+        return isDigit(c) || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+    }
+
+    /**
+     * Reads the object at the cursor into a LazyJSONObject, skipping over the member values.
+     * */
+    LazyJSONObject scanObject() throws Exception{
+        enterNesting();
+        match('{');
+        LazyJSONObject object = new LazyJSONObject(this, lastObjectSize);
+        if(peek() == '"'){
+            while(true){
+                String key = parseKey();
+                match(':');
+                object.add(key, cursor);
+                cursor = validated ? skipValue(cursor) : checkValue(cursor);
+                if(peek() != ','){
+                    break;
+                }
+                match(',');
+            }
+        }
+        match('}');
+        object.seal();
+        lastObjectSize = object.size;
+        depth--;
+        return object;
+    }
+
+    LazyJSONArray scanArray() throws Exception{
+        enterNesting();
+        match('[');
+        LazyJSONArray array = new LazyJSONArray(this);
+        if(peek() != ']'){
+            while(true){
+                array.add(cursor);
+                cursor = validated ? skipValue(cursor) : checkValue(cursor);
+                if(peek() != ','){
+                    break;
+                }
+                match(',');
+            }
         }
+        match(']');
+        array.seal();
+        depth--;
+        return array;
+    }
+
+    /**
+     * Parses the value at start of a document already validated by scanObject(): objects and
+     * arrays come back lazy, everything else as parseValue() would return it.
+     * */
+    Object materialize(int start){
+        cursor = start;
+        depth = 0;
+        nextBackslash = -1;
         try{
-            int s = Integer.parseInt(num);
-            return s;
-        }catch(NumberFormatException ex){
-            double d = Double.parseDouble(num);
-            return d;
+            switch (peek()){
+                case '{':
+                    return scanObject();
+                case '[':
+                    if(compactNumericArrays){
+                        return parseList(buffer);
+                    }
+                    return scanArray();
+                default:
+                    return parseValue(buffer);
+            }
+        }catch(Exception e){
+            throw new IllegalStateException("Cannot load value at position " + start + ": " + e.getMessage(), e);
         }
     }
 
-    public Object get(String key){
-        return this.dataMap.get("\"" + key + "\"");
+    static final byte SKIP_QUOTE = 1;
+
+    static final byte SKIP_OPEN = 2;
+
+    static final byte SKIP_CLOSE = 3;
+
+    /**
+     * What skipValue() has to act on for each ASCII character; everything else is passed over.
+     * */
+    static final byte[] SKIP_CLASSES = new byte[128];
+
+    static {
+        SKIP_CLASSES['"'] = SKIP_QUOTE;
+        SKIP_CLASSES['{'] = SKIP_OPEN;
+        SKIP_CLASSES['['] = SKIP_OPEN;
+        SKIP_CLASSES['}'] = SKIP_CLOSE;
+        SKIP_CLASSES[']'] = SKIP_CLOSE;
     }
 
+    /**
+     * Moves the cursor past the value at the cursor, and the white space after it, without building
+     * anything. Objects and arrays are passed over by counting brackets outside of strings, and
+     * strings by finding the first quote not escaped, so nothing inside the value is checked beyond
+     * the brackets balancing and the strings being closed.
+     * */
+    public void skipValue() throws Exception{
+        if(jumpWhiteSpace) consumeWhiteSpace();
+        cursor = skipValue(cursor);
+    }
 
-    public String toJSONString(Object o){
-        return superToString(o, "");
+    private int skipValue(int i) throws Exception{
+        char c = at(i);
+        if(c == '"'){
+            return skipWhiteSpace(skipQuoted(i));
+        }
+        if(c == '{' || c == '['){
+            int nesting = 0;
+            int j = i;
+            while(j < end){
+                c = input.charAt(j);
+                if(c >= SKIP_CLASSES.length || SKIP_CLASSES[c] == 0){
+                    j++;
+                    continue;
+                }
+                switch (SKIP_CLASSES[c]){
+                    case SKIP_QUOTE:
+                        j = skipQuoted(j);
+                        continue;
+                    case SKIP_OPEN:
+                        nesting++;
+                        break;
+                    default:
+                        if(--nesting == 0){
+                            return skipWhiteSpace(j + 1);
+                        }
+                }
+                j++;
+            }
+            throw new Exception("Unterminated value starting at position " + i + ".");
+        }
+        int j = i;
+        while(j < end){
+            c = input.charAt(j);
+            if(c == ',' || c == '}' || c == ']' || isWhiteSpace(c)){
+                break;
+            }
+            j++;
+        }
+        if(j == i){
+            throw new Exception("Unexpected " + describe(i) + " at position " + i + ".");
+        }
+        return skipWhiteSpace(j);
     }
 
-    public String superToString(Object o, String buffer){
-        if(o == null){
-            return null;
+    /**
+     * Returns the index after the closing quote of the string whose opening quote is at i.
+     * */
+    private int skipQuoted(int i) throws Exception{
+        int quote = input.indexOf('"', i + 1);
+        while(quote >= 0 && quote < end){
+            int backslashes = 0;
+            while(input.charAt(quote - 1 - backslashes) == '\\'){
+                backslashes++;
+            }
+            if((backslashes & 1) == 0){
+                return quote + 1;
+            }
+            quote = input.indexOf('"', quote + 1);
         }
-        if(o.getClass().equals(Integer.class)
-                || o.getClass().equals(Double.class)
-                || o.getClass().equals(Float.class)
-                || o.getClass().equals(Short.class)
-                || o.getClass().equals(Long.class)
-                || o.getClass().equals(Boolean.class)
-                || o.getClass().equals(Character.class)
-                || o.getClass().equals(Byte.class)
-                || o.getClass().equals(String.class)){
-            return "\"" + o.toString() + "\"";
-        }
-        String s = "";
-        Field[] fs = o.getClass().getDeclaredFields();
-        if(fs == null || fs.length == 0){
-            return "";
+        throw new Exception("Unterminated string starting at position " + i + ".");
+    }
+
+    /**
+     * Moves past the value at i like skipValue(), but checks its whole syntax, which lazy mode
+     * relies on. Runs on plain index loops rather than match(), as it has to be much cheaper than
+     * parsing.
+     * */
+    private int checkValue(int i) throws Exception{
+        char c = at(i);
+        switch (c){
+            case '"':
+                return skipWhiteSpace(skipString(i));
+            case '{':
+                enterNesting(i);
+                i = skipWhiteSpace(i + 1);
+                if(at(i) != '}'){
+                    while(true){
+                        if(at(i) != '"'){
+                            throw skipMismatch('"', i);
+                        }
+                        i = skipWhiteSpace(skipString(i));
+                        if(at(i) != ':'){
+                            throw skipMismatch(':', i);
+                        }
+                        i = checkValue(skipWhiteSpace(i + 1));
+                        if(at(i) != ','){
+                            break;
+                        }
+                        i = skipWhiteSpace(i + 1);
+                    }
+                    if(at(i) != '}'){
+                        throw skipMismatch('}', i);
+                    }
+                }
+                depth--;
+                return skipWhiteSpace(i + 1);
+            case '[':
+                enterNesting(i);
+                i = skipWhiteSpace(i + 1);
+                if(at(i) != ']'){
+                    while(true){
+                        i = checkValue(i);
+                        if(at(i) != ','){
+                            break;
+                        }
+                        i = skipWhiteSpace(i + 1);
+                    }
+                    if(at(i) != ']'){
+                        throw skipMismatch(']', i);
+                    }
+                }
+                depth--;
+                return skipWhiteSpace(i + 1);
+            case 't':
+                return skipWord("true", i);
+            case 'f':
+                return skipWord("false", i);
+            case 'n':
+                return skipWord("null", i);
+            default:
+                if(isNumberStart(c)){
+                    return skipWhiteSpace(skipNumber(i));
+                }
+                throw new Exception("Unexpected " + describe(i) + " at position " + i + ".");
         }
-        for(int i = 0; i < fs.length; i++){
+    }
 
-            Field f = fs[i];
+    private void enterNesting(int i) throws Exception{
+        if(++depth > maxDepth){
+            throw new Exception("Nesting deeper than " + maxDepth + " levels at position " + i + ".");
+        }
+    }
 
-            f.setAccessible(true);
-            Object val = null;
-            try{
-                val = f.get(o);
-            }catch (IllegalAccessException e){
-                e.printStackTrace();
+    private int skipWhiteSpace(int i){
+        while(i < end && isWhiteSpace(input.charAt(i))){
+            i++;
+        }
+        return i;
+    }
+
+    private Exception skipMismatch(char c, int i){
+        return new Exception("Mismatch: expect '" + c + "', but see " + describe(i) + ".");
+    }
+
+    private int skipWord(String word, int i) throws Exception{
+        if(!input.startsWith(word, i)){
+            throw new Exception("When parsing word '" + word + "', mismatch at position " + i + ".");
+        }
+        return skipWhiteSpace(i + word.length());
+    }
+
+    /**
+     * Checks the number grammar of RFC 8259 from i and returns the index after the number.
+     * */
+    private int skipNumber(int i) throws Exception{
+        int start = i;
+        if(at(i) == '-'){
+            i++;
+        }
+        if(at(i) == '0'){
+            i++;
+        }else if(isDigit(at(i)) && at(i) != '0'){
+            i = skipDigits(i);
+        }else{
+            throw new Exception("Malformed number at position " + start + ".");
+        }
+        if(at(i) == '.'){
+            int digits = skipDigits(i + 1);
+            if(digits == i + 1){
+                throw new Exception("Malformed number at position " + start + ".");
             }
-            String v = "";
-            if(i < fs.length - 1) {
-                v = buffer + "\t\"" + f.getName() + "\":" + superToString(val, buffer + "\t") + ",\n";
+            i = digits;
+        }
+        char e = at(i);
+        if(e == 'e' || e == 'E'){
+            i++;
+            if(at(i) == '+' || at(i) == '-'){
+                i++;
+            }
+            int digits = skipDigits(i);
+            if(digits == i){
+                throw new Exception("Malformed number at position " + start + ".");
+            }
+            i = digits;
+        }
+        if(isNumberChar(at(i))){
+            throw new Exception("Malformed number at position " + start + ".");
+        }
+        return i;
+    }
+
+    private int skipDigits(int i){
+        while(i < end && isDigit(input.charAt(i))){
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Checks the string whose opening quote is at i, escapes included, and returns the index after
+     * its closing quote.
+     * */
+    private int skipString(int i) throws Exception{
+        int start = i;
+        i++;
+        int quote = input.indexOf('"', i);
+        if(nextBackslash < i){
+            nextBackslash = input.indexOf('\\', i);
+            if(nextBackslash < 0){
+                nextBackslash = Integer.MAX_VALUE;
+            }
+        }
+        if(quote >= 0 && quote < end && quote < nextBackslash){
+            return quote + 1;
+        }
+        while(i < end){
+            char c = input.charAt(i);
+            if(c == '"'){
+                return i + 1;
+            }
+            if(c != '\\'){
+                i++;
+                continue;
+            }
+            if(i + 1 >= end){
+                break;
+            }
+            char e = input.charAt(i + 1);
+            if(e == 'u'){
+                for(int k = 2; k < 6; k++){
+                    if(i + k >= end || Character.digit(input.charAt(i + k), 16) < 0){
+                        throw new Exception("Illegal unicode escape at position " + i + ".");
+                    }
+                }
+                i += 6;
+            }else if("\"\\/bfnrt".indexOf(e) >= 0){
+                i += 2;
             }else{
-                v = buffer + "\t\"" + f.getName() + "\":" + superToString(val, buffer + "\t") + "\n";
+                throw new Exception("Illegal escape '\\" + e + "' at position " + i + ".");
+            }
+        }
+        throw new Exception("Unterminated string starting at position " + start + ".");
+    }
+
+    /**
+     * Returns the values at path without building the rest of the tree: subtrees off the path are
+     * passed over by checkValue() and only the values found are parsed. The root must be an object
+     * and the scan goes on to the end of the input, so select() fails on exactly the documents
+     * parse() fails on, however early the last match comes. A path without
+     * wildcards returns its first match (the first of duplicate keys). See JSONPath for the syntax.
+     * */
+    public List<Object> select(String path) throws Exception{
+        return select(JSONPath.compile(path));
+    }
+
+    public List<Object> select(JSONPath path) throws Exception{
+        return select(path, path.hasWildcard() ? Integer.MAX_VALUE : 1, true);
+    }
+
+    /**
+     * The first value at path, or null if there is none.
+     * */
+    public Object selectFirst(String path) throws Exception{
+        List<Object> values = select(JSONPath.compile(path), 1, true);
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    /**
+     * Like select(), but does not validate the document: subtrees off the path are passed over by
+     * skipValue(), which only balances brackets and closes strings, and a path without wildcards
+     * stops reading at its first match. Only the objects and arrays along the path are checked,
+     * so malformed input may go unnoticed. For trusted input where speed matters.
+     * */
+    public List<Object> selectUnchecked(String path) throws Exception{
+        JSONPath compiled = JSONPath.compile(path);
+        return select(compiled, compiled.hasWildcard() ? Integer.MAX_VALUE : 1, false);
+    }
+
+    List<Object> select(JSONPath path, int limit, boolean check) throws Exception{
+        List<Object> values = new ArrayList<>(limit == 1 ? 1 : 10);
+        depth = 0;
+        nextBackslash = -1;
+        int first = skipWhiteSpace(0);
+        if(at(first) != '{'){
+            throw skipMismatch('{', first);
+        }
+        int last = select(first, path, 0, values, limit, check);
+        if((check || values.size() < limit) && last != end){
+            throw new Exception("Unexpected " + describe(last) + " at position " + last + ".");
+        }
+        return values;
+    }
+
+    /**
+     * Passes over the value at i: checking its syntax when check, else only skipping it.
+     * */
+    private int pass(int i, boolean check) throws Exception{
+        return check ? checkValue(i) : skipValue(i);
+    }
+
+    /**
+     * Collects the values at path from step on in the value at i. Once limit values are found the
+     * rest is only passed over, and without check not even that: the scan stops there.
+     * */
+    private int select(int i, JSONPath path, int step, List<Object> values, int limit, boolean check) throws Exception{
+        if(values.size() >= limit){
+            return pass(i, check);
+        }
+        if(step == path.length()){
+            cursor = i;
+            values.add(parseValue(buffer));
+            return cursor;
+        }
+        String name = path.names[step];
+        char c = at(i);
+        if(c == '{' && name != null){
+            enterNesting(i);
+            i = skipWhiteSpace(i + 1);
+            if(at(i) != '}'){
+                while(true){
+                    if(at(i) != '"'){
+                        throw skipMismatch('"', i);
+                    }
+                    int keyEnd = skipString(i);
+                    boolean matches = keyMatches(name, i + 1, keyEnd - 1);
+                    i = skipWhiteSpace(keyEnd);
+                    if(at(i) != ':'){
+                        throw skipMismatch(':', i);
+                    }
+                    i = skipWhiteSpace(i + 1);
+                    i = matches ? select(i, path, step + 1, values, limit, check) : pass(i, check);
+                    if(!check && values.size() >= limit){
+                        return i;
+                    }
+                    if(at(i) != ','){
+                        break;
+                    }
+                    i = skipWhiteSpace(i + 1);
+                }
+                if(at(i) != '}'){
+                    throw skipMismatch('}', i);
+                }
+            }
+            depth--;
+            return skipWhiteSpace(i + 1);
+        }
+        if(c == '[' && name == null){
+            int index = path.indexes[step];
+            enterNesting(i);
+            i = skipWhiteSpace(i + 1);
+            if(at(i) != ']'){
+                for(int k = 0; ; k++){
+                    i = index == JSONPath.ANY || index == k ? select(i, path, step + 1, values, limit, check) : pass(i, check);
+                    if(!check && values.size() >= limit){
+                        return i;
+                    }
+                    if(at(i) != ','){
+                        break;
+                    }
+                    i = skipWhiteSpace(i + 1);
+                }
+                if(at(i) != ']'){
+                    throw skipMismatch(']', i);
+                }
             }
-            s += v;
+            depth--;
+            return skipWhiteSpace(i + 1);
+        }
+        return pass(i, check);
+    }
+
+    /**
+     * Compares the key between from and to, just checked by skipString(), with a path step.
+     * */
+    private boolean keyMatches(String name, int from, int to) throws Exception{
+        if(name == JSONPath.ANY_MEMBER){
+            return true;
+        }
+        if(nextBackslash >= to){
+            return name.length() == to - from && input.regionMatches(from, name, 0, to - from);
+        }
+        return name.equals(parseEscapedString(from, nextBackslash));
+    }
+
+    /**
+     * Loads the document into a new JSONTape instead of dataMap.
+     * */
+    public JSONTape parseTape() throws Exception{
+        return parseTape(new JSONTape());
+    }
 
+    /**
+     * Loads the document into tape, replacing what it held, so that a tape reused from document to
+     * document keeps its arrays and parsing allocates nothing beyond growing them.
+     * */
+    public JSONTape parseTape(JSONTape tape) throws Exception{
+        tape.clear();
+        depth = 0;
+        if(jumpWhiteSpace) consumeWhiteSpace();
+        if(peek() != '{'){
+            match('{');
         }
+        writeValue(tape);
+        checkEnd(cursor);
+        return tape;
+    }
 
-        return "{\n" + s + buffer + "}";
+    private void writeValue(JSONTape tape) throws Exception{
+        int count = 0;
+        switch (peek()){
+            case '{':
+                enterNesting();
+                int object = tape.begin('{');
+                match('{');
+                if(peek() == '"'){
+                    while(true){
+                        writeString(tape, ':');
+                        match(':');
+                        writeValue(tape);
+                        count++;
+                        if(peek() != ','){
+                            break;
+                        }
+                        match(',');
+                    }
+                }
+                match('}');
+                tape.end('}', object, count);
+                depth--;
+                return;
+            case '[':
+                enterNesting();
+                int array = tape.begin('[');
+                match('[');
+                if(peek() != ']'){
+                    while(true){
+                        writeValue(tape);
+                        count++;
+                        if(peek() != ','){
+                            break;
+                        }
+                        match(',');
+                    }
+                }
+                match(']');
+                tape.end(']', array, count);
+                depth--;
+                return;
+            case '"':
+                writeString(tape, '"');
+                return;
+            case 't':
+                writeWord(tape, "true", 't');
+                return;
+            case 'f':
+                writeWord(tape, "false", 'f');
+                return;
+            case 'n':
+                writeWord(tape, "null", 'n');
+                return;
+            default:
+                if(!isNumberStart(peek())){
+                    parseReservedWord();
+                }
+                int start = cursor;
+                switch (scanNumber()){
+                    case JSONNumberParser.INT:
+                        tape.addNumber('i', numbers.longValue());
+                        return;
+                    case JSONNumberParser.LONG:
+                        tape.addNumber('l', numbers.longValue());
+                        return;
+                    case JSONNumberParser.DOUBLE:
+                        tape.addNumber('d', Double.doubleToRawLongBits(numbers.doubleValue()));
+                        return;
+                    default:
+                        int to = start;
+                        while(to < end && isNumberChar(input.charAt(to))){
+                            to++;
+                        }
+                        tape.addText('B', input, start, to);
+                }
+        }
+    }
+
+    private void writeString(JSONTape tape, char tag) throws Exception{
+        if(peek() != '"'){
+            throw new Exception("Mismatch: expect '\"', but see " + describe(cursor) + ".");
+        }
+        int start = cursor + 1;
+        for(int i = start; i < end; i++){
+            char c = input.charAt(i);
+            if(c == '"'){
+                tape.addText(tag, input, start, i);
+                cursor = i + 1;
+                if(jumpWhiteSpace) consumeWhiteSpace();
+                return;
+            }
+            if(c == '\\'){
+                StringBuilder decoded = decodeEscapedString(start, i);
+                tape.addText(tag, decoded, 0, decoded.length());
+                return;
+            }
+        }
+        throw new Exception("Unterminated string starting at position " + (start - 1) + ".");
+    }
+
+    private void writeWord(JSONTape tape, String word, char tag) throws Exception{
+        if(input.startsWith(word, cursor)){
+            cursor += word.length();
+            if(jumpWhiteSpace) consumeWhiteSpace();
+        }else{
+            parseReservedWord();
+        }
+        tape.add(tag, 0);
+    }
+
+    /**
+     * Reads the document into a new instance of type, the inverse of JSONWriter and of
+     * superToString(), whose quoted numbers, booleans and chars are read as such (superToString()
+     * does not escape, so only strings without quotes or backslashes come back). Objects
+     * become instances of plain classes or records (see ClassBinding), Maps or Collections, and
+     * every value is converted to the declared type of the field it goes to while it is read,
+     * with no intermediate map. Unknown members are checked but not built, missing ones keep their
+     * defaults, and nothing but white space may follow the value. The lazy, projection and
+     * two-stage settings do not apply.
+     * */
+    @SuppressWarnings("unchecked")
+    public <T> T load(Class<T> type) throws Exception{
+        return (T) load((Type) type);
+    }
+
+    /**
+     * Like load(Class), for generic types such as the Type of a List&lt;Hotel&gt; field.
+     * */
+    public Object load(Type type) throws Exception{
+        depth = 0;
+        nextBackslash = -1;
+        if(jumpWhiteSpace) consumeWhiteSpace();
+        Object value = readValue(type);
+        checkEnd(cursor);
+        return value;
+    }
+
+    Object readValue(Type type) throws Exception{
+        if(type instanceof Class){
+            return readValue((Class<?>) type, null);
+        }
+        if(type instanceof ParameterizedType){
+            ParameterizedType p = (ParameterizedType) type;
+            return readValue((Class<?>) p.getRawType(), p.getActualTypeArguments());
+        }
+        if(type instanceof GenericArrayType){
+            if(peek() == 'n'){
+                return parseReservedWord();
+            }
+            Type component = ((GenericArrayType) type).getGenericComponentType();
+            return readArray(rawType(component), component);
+        }
+        return readValue(rawType(type), null);
+    }
+
+    static Class<?> rawType(Type type){
+        if(type instanceof Class){
+            return (Class<?>) type;
+        }
+        if(type instanceof ParameterizedType){
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        if(type instanceof GenericArrayType){
+            return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        if(type instanceof WildcardType){
+            return rawType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if(type instanceof TypeVariable){
+            return rawType(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    private Object readValue(Class<?> type, Type[] arguments) throws Exception{
+        char c = peek();
+        if(c == 'n'){
+            return parseReservedWord();
+        }
+        if(type == String.class || type == CharSequence.class){
+            if(c != '"'){
+                throw cannotRead(type);
+            }
+            return parseString();
+        }
+        if(type == Object.class){
+            return parseValue(buffer);
+        }
+        if(type.isPrimitive() || Number.class.isAssignableFrom(type) || type == Boolean.class
+                || type == Character.class){
+            return readScalar(type);
+        }
+        if(type.isEnum()){
+            if(c != '"'){
+                throw cannotRead(type);
+            }
+            int start = cursor;
+            String name = parseString();
+            for(Object constant : type.getEnumConstants()){
+                if(((Enum<?>) constant).name().equals(name)){
+                    return constant;
+                }
+            }
+            throw new Exception("No constant " + name + " in " + type.getName() + " at position " + start + ".");
+        }
+        if(type.isArray()){
+            return readArray(type.getComponentType(), type.getComponentType());
+        }
+        if(Map.class.isAssignableFrom(type)){
+            return readMap(type, arguments);
+        }
+        if(Collection.class.isAssignableFrom(type) || type == Iterable.class){
+            return readCollection(type, arguments == null ? Object.class : arguments[0]);
+        }
+        if(c != '{'){
+            throw cannotRead(type);
+        }
+        return readObject(ClassBinding.of(type));
+    }
+
+    private Object readScalar(Class<?> type) throws Exception{
+        char c = peek();
+        if(c == '"' && type != char.class && type != Character.class){
+            return readQuotedScalar(type);
+        }
+        if(type == boolean.class || type == Boolean.class){
+            if(c != 't' && c != 'f'){
+                throw cannotRead(type);
+            }
+            return parseReservedWord();
+        }
+        if(type == char.class || type == Character.class){
+            int start = cursor;
+            String s = c == '"' ? parseString() : null;
+            if(s == null || s.length() != 1){
+                cursor = start;
+                throw cannotRead(type);
+            }
+            return s.charAt(0);
+        }
+        if(!isNumberStart(c)){
+            throw cannotRead(type);
+        }
+        int start = cursor;
+        int kind = scanNumber();
+        if(type == int.class || type == Integer.class){
+            return (int) integer(start, kind, Integer.MIN_VALUE, Integer.MAX_VALUE, type);
+        }
+        if(type == long.class || type == Long.class){
+            return integer(start, kind, Long.MIN_VALUE, Long.MAX_VALUE, type);
+        }
+        if(type == double.class || type == Double.class){
+            return toDouble(kind);
+        }
+        if(type == float.class || type == Float.class){
+            return (float) toDouble(kind);
+        }
+        if(type == short.class || type == Short.class){
+            return (short) integer(start, kind, Short.MIN_VALUE, Short.MAX_VALUE, type);
+        }
+        if(type == byte.class || type == Byte.class){
+            return (byte) integer(start, kind, Byte.MIN_VALUE, Byte.MAX_VALUE, type);
+        }
+        if(type == BigDecimal.class){
+            return new BigDecimal(numberText(start));
+        }
+        if(type == BigInteger.class){
+            if(kind == JSONNumberParser.DOUBLE){
+                throw new Exception("Number at position " + start + " is not an integer.");
+            }
+            return kind == JSONNumberParser.BIG_INTEGER ? numbers.bigValue : BigInteger.valueOf(numbers.longValue());
+        }
+        if(type.isAssignableFrom(Integer.class) || type.isAssignableFrom(Long.class)
+                || type.isAssignableFrom(Double.class) || type.isAssignableFrom(BigInteger.class)){
+            Number n = numbers.toNumber();
+            if(type.isInstance(n)){
+                return n;
+            }
+        }
+        cursor = start;
+        throw cannotRead(type);
+    }
+
+    /**
+     * A number or boolean written as a string, the way superToString() writes every scalar. The
+     * content must be the scalar alone, with no white space or quotes around it; it is read in
+     * place of the input, which is put back afterwards.
+     * */
+    private Object readQuotedScalar(Class<?> type) throws Exception{
+        int start = cursor;
+        String s = parseString();
+        String outer = input;
+        int outerEnd = end;
+        int outerCursor = cursor;
+        input = s;
+        end = s.length();
+        cursor = 0;
+        Object value = null;
+        try{
+            if(end > 0 && !isWhiteSpace(s.charAt(0)) && !isWhiteSpace(s.charAt(end - 1)) && s.charAt(0) != '"'){
+                value = readScalar(type);
+                if(cursor != end){
+                    value = null;
+                }
+            }
+        }catch(Exception e){
+            value = null;
+        }finally{
+            input = outer;
+            end = outerEnd;
+            cursor = outerCursor;
+        }
+        if(value == null){
+            cursor = start;
+            throw cannotRead(type, "quoted ");
+        }
+        return value;
+    }
+
+    private long integer(int start, int kind, long min, long max, Class<?> type) throws Exception{
+        if(kind == JSONNumberParser.DOUBLE){
+            throw new Exception("Number at position " + start + " is not an integer.");
+        }
+        long v = numbers.longValue();
+        if(kind != JSONNumberParser.INT && kind != JSONNumberParser.LONG || v < min || v > max){
+            throw new Exception("Number at position " + start + " does not fit in " + type.getName() + ".");
+        }
+        return v;
+    }
+
+    private double toDouble(int kind){
+        switch (kind){
+            case JSONNumberParser.DOUBLE:
+                return numbers.doubleValue();
+            case JSONNumberParser.BIG_INTEGER:
+                return numbers.bigValue.doubleValue();
+            default:
+                return numbers.longValue();
+        }
+    }
+
+    private String numberText(int start){
+        int stop = start;
+        while(stop < end && isNumberChar(input.charAt(stop))){
+            stop++;
+        }
+        return input.substring(start, stop);
+    }
+
+    private Object readArray(Class<?> component, Type generic) throws Exception{
+        if(component == int.class || component == long.class){
+            long[] values = new long[8];
+            int n = 0;
+            enterNesting();
+            match('[');
+            if(peek() != ']'){
+                while(true){
+                    if(!isNumberStart(peek())){
+                        throw cannotRead(component);
+                    }
+                    int start = cursor;
+                    int kind = scanNumber();
+                    if(n == values.length){
+                        values = Arrays.copyOf(values, n * 2);
+                    }
+                    values[n++] = component == int.class
+                            ? integer(start, kind, Integer.MIN_VALUE, Integer.MAX_VALUE, component)
+                            : integer(start, kind, Long.MIN_VALUE, Long.MAX_VALUE, component);
+                    if(peek() != ','){
+                        break;
+                    }
+                    match(',');
+                }
+            }
+            match(']');
+            depth--;
+            if(component == long.class){
+                return Arrays.copyOf(values, n);
+            }
+            int[] ints = new int[n];
+            for(int i = 0; i < n; i++){
+                ints[i] = (int) values[i];
+            }
+            return ints;
+        }
+        if(component == double.class){
+            double[] values = new double[8];
+            int n = 0;
+            enterNesting();
+            match('[');
+            if(peek() != ']'){
+                while(true){
+                    if(!isNumberStart(peek())){
+                        throw cannotRead(component);
+                    }
+                    int kind = scanNumber();
+                    if(n == values.length){
+                        values = Arrays.copyOf(values, n * 2);
+                    }
+                    values[n++] = toDouble(kind);
+                    if(peek() != ','){
+                        break;
+                    }
+                    match(',');
+                }
+            }
+            match(']');
+            depth--;
+            return Arrays.copyOf(values, n);
+        }
+        List<Object> elements = new ArrayList<>();
+        readElements(elements, generic);
+        Object array = Array.newInstance(component, elements.size());
+        for(int i = 0; i < elements.size(); i++){
+            Object element = elements.get(i);
+            if(element == null && component.isPrimitive()){
+                throw new Exception("Cannot store null in a " + component.getName() + " array.");
+            }
+            Array.set(array, i, element);
+        }
+        return array;
+    }
+
+    private void readElements(Collection<Object> elements, Type type) throws Exception{
+        if(peek() != '['){
+            throw cannotRead(rawType(type), "an array of ");
+        }
+        enterNesting();
+        match('[');
+        if(peek() != ']'){
+            while(true){
+                elements.add(readValue(type));
+                if(peek() != ','){
+                    break;
+                }
+                match(',');
+            }
+        }
+        match(']');
+        depth--;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<Object> readCollection(Class<?> type, Type element) throws Exception{
+        Collection<Object> collection;
+        if(type.isInterface() || Modifier.isAbstract(type.getModifiers())){
+            if(SortedSet.class.isAssignableFrom(type)){
+                collection = new TreeSet<>();
+            }else if(Set.class.isAssignableFrom(type)){
+                collection = new LinkedHashSet<>();
+            }else if(Queue.class.isAssignableFrom(type) && !List.class.isAssignableFrom(type)){
+                collection = new ArrayDeque<>();
+            }else{
+                collection = new ArrayList<>();
+            }
+        }else{
+            collection = (Collection<Object>) ClassBinding.of(type).start();
+        }
+        readElements(collection, element);
+        return collection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readMap(Class<?> type, Type[] arguments) throws Exception{
+        if(arguments != null && rawType(arguments[0]) != String.class && rawType(arguments[0]) != Object.class
+                && rawType(arguments[0]) != CharSequence.class){
+            throw new Exception("Cannot read member names as " + arguments[0].getTypeName() + ".");
+        }
+        if(peek() != '{'){
+            throw cannotRead(type);
+        }
+        Type value = arguments == null ? Object.class : arguments[1];
+        Map<String, Object> map;
+        if(type.isInterface() || Modifier.isAbstract(type.getModifiers())){
+            map = SortedMap.class.isAssignableFrom(type) ? new TreeMap<>() : newObjectMap(lastObjectSize);
+        }else{
+            map = (Map<String, Object>) ClassBinding.of(type).start();
+        }
+        enterNesting();
+        match('{');
+        if(peek() == '"'){
+            while(true){
+                String key = parseKey();
+                match(':');
+                map.put(key, readValue(value));
+                if(peek() != ','){
+                    break;
+                }
+                match(',');
+            }
+        }
+        match('}');
+        lastObjectSize = map.size();
+        depth--;
+        return map;
+    }
+
+    private Object readObject(ClassBinding binding) throws Exception{
+        enterNesting();
+        match('{');
+        Object state = binding.start();
+        if(peek() == '"'){
+            while(true){
+                String key = parseKey();
+                match(':');
+                ClassBinding.MemberBinding member = binding.member(key);
+                if(member == null){
+                    cursor = checkValue(cursor);
+                }else{
+                    member.set(state, readValue(member.type), binding.record);
+                }
+                if(peek() != ','){
+                    break;
+                }
+                match(',');
+            }
+        }
+        match('}');
+        depth--;
+        return binding.finish(state);
+    }
+
+    private Exception cannotRead(Class<?> type){
+        return cannotRead(type, "");
+    }
+
+    private Exception cannotRead(Class<?> type, String what){
+        return new Exception("Cannot read " + describe(cursor) + " at position " + cursor + " as " + what
+                + type.getTypeName() + ".");
+    }
+
+    public Object get(String key){
+        return this.dataMap.get(key);
+    }
+
+
+    public String toJSONString(Object o){
+        return superToString(o, "");
+    }
+
+    /**
+     * Writes the declared fields of o, recursively, in this loader's indented layout. What it takes
+     * to read the fields of a class is looked up once and cached (see ClassAccessors), and the whole
+     * tree is appended to one StringBuilder. For strict JSON, or to stream to a Writer or
+     * OutputStream, use JSONWriter.
+     * */
+    public String superToString(Object o, String buffer){
+        if(o == null){
+            return null;
+        }
+        StringBuilder sb = new StringBuilder();
+        superToString(o, buffer, sb);
+        return sb.toString();
+    }
+
+    private void superToString(Object o, String buffer, StringBuilder sb){
+        if(o == null){
+            sb.append("null");
+            return;
+        }
+        ClassAccessors accessors = ClassAccessors.of(o.getClass());
+        if(accessors.scalar || accessors.jdkValue){
+            sb.append('"').append(o.toString()).append('"');
+            return;
+        }
+        ClassAccessors.FieldWriter[] fs = accessors.fields;
+        if(fs.length == 0){
+            return;
+        }
+        String inner = buffer + "\t";
+        sb.append("{\n");
+        for(int i = 0; i < fs.length; i++){
+            ClassAccessors.FieldWriter f = fs[i];
+            sb.append(buffer).append(f.label);
+            superToString(f.get(o), inner, sb);
+            sb.append(i < fs.length - 1 ? ",\n" : "\n");
+        }
+        sb.append(buffer).append('}');
     }
 
 
@@ -15,7 +15,14 @@ public class SimpleJSONParser {
     String buffer;
 
     boolean consumeWhiteSpace;
-    
+
+    ParseTraceListener trace = ParseTraceListener.NONE;
+
+    /**
+     * @deprecated use setPrintLog() or setTraceListener(). Still honoured: parse() traces to
+     * System.out when this is set and no other listener is.
+     * */
+    @Deprecated
     boolean printLog;
 
     Map<String, Object> dataMap;
@@ -45,8 +52,8 @@ public class SimpleJSONParser {
             consumeWhiteSpace();
         }
         if(c == peek()){
+            listener().matched(c, cursor);
             cursor ++;
-            printMessage("match: '" + c + "', at pos " + cursor);
             if(consumeWhiteSpace){
                 consumeWhiteSpace();
             }
@@ -57,7 +64,7 @@ public class SimpleJSONParser {
     }
 
     public char freeMatch() throws Exception{
-        printMessageWithoutNewLine("free ");
+        listener().freeMatched(cursor);
         return match(peek());
     }
 
@@ -65,15 +72,15 @@ public class SimpleJSONParser {
         if(cursor >= input.length()){
             return;
         }
-        printMessage("consume white space start at " + cursor);
+        int start = cursor;
         while(peek() == ' ' || peek() == '\n' || peek() == '\t'){
             if(cursor < input.length() - 1){
                 cursor++;
             }else{
-                return;
+                break;
             }
         }
-        printMessage("consume white space end at " + cursor);
+        listener().whiteSpaceConsumed(start, cursor);
     }
 
     public boolean isLetter(char c){
@@ -94,6 +101,15 @@ public class SimpleJSONParser {
         return parseJSON("");
     }
 
+    /**
+     * The listener events go to: the one set, or System.out while only the deprecated printLog
+     * field asks for tracing. Resolved on every event, so clearing printLog silences the parser
+     * again.
+     * */
+    ParseTraceListener listener(){
+        return printLog && trace == ParseTraceListener.NONE ? ParseTraceListener.STDOUT : trace;
+    }
+
 
     public String parseJSON(String buffer) throws Exception{
 
@@ -122,7 +138,7 @@ public class SimpleJSONParser {
         String res = "";
         String key = parseKey();
         res += key;
-        printMessage("In json tuple, parse key '" + key + "'");
+        listener().keyParsed(key, cursor);
         res += match(':');
         res += parseValue(buffer);
         return res;
@@ -131,7 +147,6 @@ public class SimpleJSONParser {
     public String parseTupleListTail(String buffer) throws Exception{
         String res = "";
         if(peek() == ','){
-            printMessage("buffer length: " + buffer.length());
             res += match(',')+"\n"+buffer;
             res += parseTuple(buffer);
             res += parseTupleListTail(buffer);
@@ -170,9 +185,7 @@ public class SimpleJSONParser {
                 res += parseList(buffer);
                 break;
             default:
-                printMessage("here 1");
                 if(isDigit(peek()) || peek() == '-'){
-                    printMessage("parse value to number");
                     res += parseNumber();
                 }else{
                     res += parseReservedWords();
@@ -286,16 +299,39 @@ public class SimpleJSONParser {
         return word;
     }
     
+    public ParseTraceListener getTraceListener(){
+        return trace;
+    }
+
+    public void setTraceListener(ParseTraceListener trace){
+        this.trace = trace == null ? ParseTraceListener.NONE : trace;
+    }
+
+    /**
+     * Shortcut for tracing to System.out, which is what printLog used to switch on.
+     * */
+    public void setPrintLog(boolean printLog){
+        this.printLog = printLog;
+        setTraceListener(printLog ? ParseTraceListener.STDOUT : ParseTraceListener.NONE);
+    }
+
+    /**
+     * @deprecated the parser reports through ParseTraceListener; this prints s only while
+     * printLog is set or tracing goes to System.out.
+     * */
+    @Deprecated
     public void printMessage(String s){
-        if(printLog) {
+        if(printLog || trace == ParseTraceListener.STDOUT){
             System.out.println(s);
         }
     }
 
+    /**
+     * @deprecated see printMessage().
+     * */
+    @Deprecated
     public void printMessageWithoutNewLine(String s){
-        if(printLog){
-            System.out.println(s);
-        }
+        printMessage(s);
     }
 
 
@@ -0,0 +1,105 @@
+import java.util.Arrays;
+
+/**
+ * Positions of the structural bytes of a UTF-8 JSON document, as in simdjson's stage one: every
+ * { } [ ] : , outside strings, every opening quote, and the first byte of every number and literal.
+ * Stage two (UTF8JSONLoader.parseTwoStage) jumps from one position to the next instead of
+ * inspecting white space and string contents byte by byte.
+ * */
+public class StructuralIndex {
+
+    int[] positions;
+
+    int count;
+
+
+    StructuralIndex(int capacity){
+        positions = new int[Math.max(capacity, 16)];
+    }
+
+    public int size(){
+        return count;
+    }
+
+    public int get(int i){
+        return positions[i];
+    }
+
+    /**
+     * Indexes the length bytes of input starting at from. Positions are relative to from.
+     * */
+    public static StructuralIndex build(byte[] input, int from, int length, StructuralIndexer indexer){
+        StructuralIndex index = new StructuralIndex(length / 8);
+        long[] masks = new long[4];
+        byte[] tail = null;
+        boolean prevEscaped = false;
+        long prevInString = 0;
+        long prevScalar = 0;
+        for(int block = 0; block < length; block += 64){
+            if(length - block >= 64){
+                indexer.classify(input, from + block, masks);
+            }else{
+                tail = new byte[64];
+                Arrays.fill(tail, (byte) ' ');
+                System.arraycopy(input, from + block, tail, 0, length - block);
+                indexer.classify(tail, 0, masks);
+            }
+
+            long escaped = 0;
+            long backslash = masks[StructuralIndexer.BACKSLASH];
+            if(prevEscaped){
+                escaped = 1;
+                backslash &= ~1L;
+            }
+            prevEscaped = false;
+            while(backslash != 0){
+                int i = Long.numberOfTrailingZeros(backslash);
+                if(i == 63){
+                    prevEscaped = true;
+                    break;
+                }
+                escaped |= 1L << (i + 1);
+                backslash &= ~(3L << i);
+            }
+
+            long quotes = masks[StructuralIndexer.QUOTE] & ~escaped;
+            long inString = prefixXor(quotes) ^ prevInString;
+            prevInString = inString >> 63;
+
+            long operators = masks[StructuralIndexer.OPERATOR] & ~inString;
+            long scalars = ~(masks[StructuralIndexer.OPERATOR] | masks[StructuralIndexer.WHITESPACE] | quotes) & ~inString;
+            long scalarStarts = scalars & ~((scalars << 1) | prevScalar);
+            prevScalar = scalars >>> 63;
+
+            index.add(block, operators | (quotes & inString) | scalarStarts);
+        }
+        return index;
+    }
+
+    /**
+     * Bit i of the result is the parity of the set bits at positions 0..i, i.e. whether position i
+     * lies between an opening quote (included) and its closing quote (excluded).
+     * */
+    static long prefixXor(long bits){
+        bits ^= bits << 1;
+        bits ^= bits << 2;
+        bits ^= bits << 4;
+        bits ^= bits << 8;
+        bits ^= bits << 16;
+        bits ^= bits << 32;
+        return bits;
+    }
+
+    void add(int base, long bits){
+        int n = Long.bitCount(bits);
+        if(count + n > positions.length){
+            int[] grown = new int[Math.max(positions.length * 2, count + n)];
+            System.arraycopy(positions, 0, grown, 0, count);
+            positions = grown;
+        }
+        while(bits != 0){
+            positions[count++] = base + Long.numberOfTrailingZeros(bits);
+            bits &= bits - 1;
+        }
+    }
+}
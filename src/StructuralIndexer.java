@@ -0,0 +1,30 @@
+/**
+ * Stage one of the two-stage parse: classifies the bytes of a 64-byte block.
+ *
+ * Implementations only compare bytes against a handful of ASCII characters, which is what SIMD
+ * does well; everything that depends on earlier blocks (escapes, strings) is done by
+ * StructuralIndex on the resulting bit masks.
+ * */
+public interface StructuralIndexer {
+
+    int QUOTE = 0;
+    int BACKSLASH = 1;
+    int WHITESPACE = 2;
+    /** One of { } [ ] : , */
+    int OPERATOR = 3;
+
+    /**
+     * Sets masks[QUOTE], masks[BACKSLASH], masks[WHITESPACE] and masks[OPERATOR] so that bit i
+     * describes input[from + i], for the 64 bytes starting at from.
+     * */
+    void classify(byte[] input, int from, long[] masks);
+
+    /**
+     * The Vector API indexer when running on JDK 21 or later with its class and the
+     * jdk.incubator.vector module available (run with --add-modules jdk.incubator.vector), the
+     * scalar one otherwise.
+     * */
+    static StructuralIndexer best(){
+        return ScalarStructuralIndexer.BEST;
+    }
+}
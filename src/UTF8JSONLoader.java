@@ -0,0 +1,881 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads JSON from UTF-8 bytes into the same Map/List tree as SimpleJSONLoader, without decoding
+ * the input to chars first. The input can be a byte[], a ByteBuffer (heap or direct) or a file.
+ *
+ * Structure, numbers and literals are ASCII and are matched byte by byte. UTF-8 is only decoded,
+ * and validated, inside string values, and not at all for strings that turn out to be ASCII.
+ *
+ * Files are memory-mapped window by window, so a file larger than 2 GB is parsed through a
+ * sequence of mappings instead of being read into the heap. A value crossing the end of a window
+ * makes the next window start at that value.
+ * */
+public class UTF8JSONLoader {
+
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    ByteBuffer buf;
+
+    int pos;
+
+    int limit;
+
+    /** Position in the whole input of buf[0]. */
+    long offset;
+
+    long length;
+
+    FileChannel channel;
+
+    int windowSize;
+
+    Map<String, Object> dataMap;
+
+    byte[] bytes = new byte[64];
+
+    int byteCount;
+
+    StringBuilder scratch = new StringBuilder();
+
+    JSONNumberParser numbers = new JSONNumberParser();
+
+    JSONKeyTable keys = new JSONKeyTable();
+
+    boolean compactNumericArrays;
+
+    int maxDepth = SimpleJSONLoader.DEFAULT_MAX_DEPTH;
+
+    int depth;
+
+    int lastObjectSize;
+
+    /** Stage one output walked by parseTwoStage. */
+    StructuralIndex index;
+
+    int next;
+
+
+    /**
+     * Parses the file mapped window by window, each window at most windowSize bytes long.
+     * */
+    public UTF8JSONLoader(FileChannel channel, int windowSize) throws IOException{
+        if(windowSize < 16){
+            throw new IllegalArgumentException("windowSize must be at least 16: " + windowSize);
+        }
+        this.channel = channel;
+        this.windowSize = windowSize;
+        this.length = channel.size();
+        this.buf = ByteBuffer.allocate(0);
+        remap(0);
+    }
+
+    public UTF8JSONLoader(FileChannel channel) throws IOException{
+        this(channel, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * Parses the bytes between the buffer's position and limit, e.g. a network buffer, in place.
+     * */
+    public UTF8JSONLoader(ByteBuffer input){
+        reset(input);
+    }
+
+    public UTF8JSONLoader(byte[] input, int from, int length){
+        this(ByteBuffer.wrap(input, from, length));
+    }
+
+    public UTF8JSONLoader(byte[] input){
+        this(input, 0, input.length);
+    }
+
+    /**
+     * Points the loader at the bytes between the buffer's position and limit, keeping its settings,
+     * scratch buffers and key table, so one loader can parse document after document.
+     * */
+    public UTF8JSONLoader reset(ByteBuffer input){
+        this.buf = input.slice();
+        this.limit = buf.limit();
+        this.length = limit;
+        this.pos = 0;
+        this.offset = 0;
+        this.channel = null;
+        this.index = null;
+        this.next = 0;
+        return this;
+    }
+
+    public UTF8JSONLoader reset(byte[] input, int from, int length){
+        return reset(ByteBuffer.wrap(input, from, length));
+    }
+
+    public UTF8JSONLoader reset(byte[] input){
+        return reset(input, 0, input.length);
+    }
+
+    /**
+     * Memory-maps the file and loads the JSON object it contains.
+     * */
+    public static Map<String, Object> parseFile(Path file) throws Exception{
+        try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+            UTF8JSONLoader loader = new UTF8JSONLoader(channel);
+            loader.parse();
+            return loader.dataMap;
+        }
+    }
+
+    /**
+     * Loads arrays of numbers as JSONNumberList, backed by an int[], long[] or double[], instead
+     * of lists of Integer and Double boxes.
+     * */
+    public void setCompactNumericArrays(boolean compactNumericArrays){
+        this.compactNumericArrays = compactNumericArrays;
+    }
+
+    public void setMaxDepth(int maxDepth){
+        if(maxDepth < 1){
+            throw new IllegalArgumentException("maxDepth must be positive: " + maxDepth);
+        }
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Position in the input of the next unread byte.
+     * */
+    public long position(){
+        return offset + pos;
+    }
+
+    /**
+     * Parses the document, an object followed by nothing but white space.
+     * */
+    public void parse() throws Exception{
+        parseRoot();
+        if(nextNonWhiteSpace() != -1){
+            throw trailing();
+        }
+    }
+
+    private void parseRoot() throws Exception{
+        depth = 0;
+        lastObjectSize = 0;
+        if(nextNonWhiteSpace() != '{'){
+            throw mismatch("'{'");
+        }
+        dataMap = parseObject();
+    }
+
+    private Exception trailing(){
+        return new Exception("Unexpected '" + (char) buf.get(pos) + "' after the end of the document at position " + position() + ".");
+    }
+
+    /**
+     * Parses the object between from and to of the current input, e.g. one line of NDJSON, and
+     * returns it, or null if the range holds only white space. Nothing but white space may follow
+     * the object in the range.
+     * */
+    Map<String, Object> parseRange(int from, int to) throws Exception{
+        pos = from;
+        limit = to;
+        if(nextNonWhiteSpace() == -1){
+            return null;
+        }
+        parseRoot();
+        if(nextNonWhiteSpace() != -1){
+            throw mismatch("the end of the line");
+        }
+        return dataMap;
+    }
+
+    /**
+     * Parses the comma-separated values making up the current input, a run of elements cut out of
+     * a top-level array, into elements. An input of white space only is accepted if allowEmpty.
+     * */
+    void parseElements(List<Object> elements, boolean allowEmpty) throws Exception{
+        depth = 1;
+        lastObjectSize = 0;
+        if(allowEmpty && nextNonWhiteSpace() == -1){
+            return;
+        }
+        while(true){
+            elements.add(parseValue());
+            int c = nextNonWhiteSpace();
+            if(c == -1){
+                return;
+            }
+            if(c != ','){
+                throw mismatch("',' or ']'");
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Parses in two stages: the whole input is first indexed block by block (with the Vector API
+     * when available, see StructuralIndexer.best()), then the tree is built by jumping from one
+     * structural position to the next. File input is copied to the heap first, so this mode is
+     * meant for documents below 2 GB.
+     * */
+    public void parseTwoStage() throws Exception{
+        parseTwoStage(StructuralIndexer.best());
+    }
+
+    public void parseTwoStage(StructuralIndexer indexer) throws Exception{
+        if(channel != null && (offset != 0 || limit != length)){
+            if(length > Integer.MAX_VALUE - 8){
+                throw new Exception("Two-stage parsing needs the input in one array, " + length + " bytes is too large.");
+            }
+            buf = ByteBuffer.wrap(readAll());
+            offset = 0;
+            limit = (int) length;
+        }
+        byte[] array;
+        int base;
+        if(buf.hasArray()){
+            array = buf.array();
+            base = buf.arrayOffset();
+        }else{
+            array = new byte[limit];
+            ByteBuffer view = buf.duplicate();
+            view.position(0);
+            view.limit(limit);
+            view.get(array);
+            buf = ByteBuffer.wrap(array);
+            base = 0;
+        }
+        index = StructuralIndex.build(array, base, limit, indexer);
+        next = 0;
+        depth = 0;
+        lastObjectSize = 0;
+        try{
+            if(nextStructural() != '{'){
+                throw mismatch("'{'");
+            }
+            dataMap = indexedObject();
+            if(next < index.size()){
+                pos = index.get(next);
+                throw trailing();
+            }
+        }finally{
+            index = null;
+        }
+    }
+
+    byte[] readAll() throws IOException{
+        byte[] all = new byte[(int) length];
+        ByteBuffer target = ByteBuffer.wrap(all);
+        long at = 0;
+        while(target.hasRemaining()){
+            int n = channel.read(target, at);
+            if(n < 0){
+                break;
+            }
+            at += n;
+        }
+        return all;
+    }
+
+    /**
+     * Moves pos to the next structural position and returns the byte there, or -1 at the end.
+     * */
+    int nextStructural(){
+        if(next >= index.size()){
+            pos = limit;
+            return -1;
+        }
+        pos = index.get(next++);
+        return buf.get(pos);
+    }
+
+    Object indexedValue() throws Exception{
+        int c = nextStructural();
+        switch (c){
+            case '{':
+                return indexedObject();
+            case '[':
+                return indexedList();
+            case '"':
+                pos++;
+                return parseString();
+            default:
+                break;
+        }
+        Object value;
+        if(c == 't'){
+            parseLiteral("true");
+            value = true;
+        }else if(c == 'f'){
+            parseLiteral("false");
+            value = false;
+        }else if(c == 'n'){
+            parseLiteral("null");
+            value = null;
+        }else if(c == '-' || (c >= '0' && c <= '9')){
+            value = parseNumber();
+        }else{
+            throw mismatch("a value");
+        }
+        checkScalarEnd();
+        return value;
+    }
+
+    /**
+     * A number or literal must be followed by white space or the next structural byte; stage one
+     * does not tell "12" from "12x".
+     * */
+    void checkScalarEnd() throws Exception{
+        if(pos < limit && (next >= index.size() || pos != index.get(next))){
+            byte b = buf.get(pos);
+            if(b != ' ' && b != '\n' && b != '\t' && b != '\r'){
+                throw mismatch("the end of the value");
+            }
+        }
+    }
+
+    Map<String, Object> indexedObject() throws Exception{
+        enterNesting();
+        Map<String, Object> map = SimpleJSONLoader.newObjectMap(lastObjectSize);
+        int c = nextStructural();
+        if(c != '}'){
+            while(true){
+                if(c != '"'){
+                    throw mismatch("'\"'");
+                }
+                pos++;
+                String key = parseKey();
+                if(nextStructural() != ':'){
+                    throw mismatch("':'");
+                }
+                map.put(key, indexedValue());
+                c = nextStructural();
+                if(c == '}'){
+                    break;
+                }
+                if(c != ','){
+                    throw mismatch("',' or '}'");
+                }
+                c = nextStructural();
+            }
+        }
+        lastObjectSize = map.size();
+        depth--;
+        return map;
+    }
+
+    List<?> indexedList() throws Exception{
+        enterNesting();
+        List<Object> list = new ArrayList<>();
+        if(next < index.size() && buf.get(index.get(next)) == ']'){
+            next++;
+        }else{
+            if(compactNumericArrays && next < index.size() && isNumberStart(buf.get(index.get(next)))){
+                int first = next;
+                JSONNumberList compact = indexedNumberList();
+                if(compact != null){
+                    depth--;
+                    return compact;
+                }
+                next = first;
+            }
+            list.add(indexedValue());
+            while(true){
+                int c = nextStructural();
+                if(c == ']'){
+                    break;
+                }
+                if(c != ','){
+                    throw mismatch("',' or ']'");
+                }
+                list.add(indexedValue());
+            }
+        }
+        depth--;
+        return list;
+    }
+
+    /**
+     * parseNumberList() for the two-stage mode: returns null for indexedList to start over at the
+     * first element.
+     * */
+    JSONNumberList indexedNumberList() throws Exception{
+        JSONNumberList compact = new JSONNumberList();
+        while(true){
+            nextStructural();
+            scanNumber();
+            checkScalarEnd();
+            if(!compact.add(numbers)){
+                return null;
+            }
+            int c = nextStructural();
+            if(c == ']'){
+                break;
+            }
+            if(c != ','){
+                throw mismatch("',' or ']'");
+            }
+            if(next >= index.size() || !isNumberStart(buf.get(index.get(next)))){
+                return null;
+            }
+        }
+        compact.trim();
+        return compact;
+    }
+
+    public Object get(String key){
+        return dataMap.get(key);
+    }
+
+    public Object parseValue() throws Exception{
+        int c = nextNonWhiteSpace();
+        switch (c){
+            case '{':
+                return parseObject();
+            case '[':
+                return parseList();
+            case '"':
+                pos++;
+                return parseString();
+            case 't':
+                parseLiteral("true");
+                return true;
+            case 'f':
+                parseLiteral("false");
+                return false;
+            case 'n':
+                parseLiteral("null");
+                return null;
+            default:
+                if(c == '-' || (c >= '0' && c <= '9')){
+                    return parseNumber();
+                }
+                throw mismatch("a value");
+        }
+    }
+
+    public Map<String, Object> parseObject() throws Exception{
+        enterNesting();
+        pos++;
+        Map<String, Object> map = SimpleJSONLoader.newObjectMap(lastObjectSize);
+        int c = nextNonWhiteSpace();
+        if(c != '}'){
+            while(true){
+                if(c != '"'){
+                    throw mismatch("'\"'");
+                }
+                pos++;
+                String key = parseKey();
+                if(nextNonWhiteSpace() != ':'){
+                    throw mismatch("':'");
+                }
+                pos++;
+                map.put(key, parseValue());
+                c = nextNonWhiteSpace();
+                if(c == '}'){
+                    break;
+                }
+                if(c != ','){
+                    throw mismatch("',' or '}'");
+                }
+                pos++;
+                c = nextNonWhiteSpace();
+            }
+        }
+        pos++;
+        lastObjectSize = map.size();
+        depth--;
+        return map;
+    }
+
+    public List<?> parseList() throws Exception{
+        enterNesting();
+        pos++;
+        List<Object> list = new ArrayList<>();
+        int c = nextNonWhiteSpace();
+        if(c != ']'){
+            if(compactNumericArrays && isNumberStart(c)){
+                long first = position();
+                JSONNumberList compact = parseNumberList();
+                if(compact != null){
+                    depth--;
+                    return compact;
+                }
+                seek(first);
+            }
+            list.add(parseValue());
+            while(true){
+                c = nextNonWhiteSpace();
+                if(c == ']'){
+                    break;
+                }
+                if(c != ','){
+                    throw mismatch("',' or ']'");
+                }
+                pos++;
+                list.add(parseValue());
+            }
+        }
+        pos++;
+        depth--;
+        return list;
+    }
+
+    /**
+     * Reads the elements of an array starting with a number into a JSONNumberList. Returns null
+     * as soon as a value turns up that does not fit, for parseList to read the array again from
+     * its first element as an ordinary list, so that every element keeps the type it has there.
+     * */
+    JSONNumberList parseNumberList() throws Exception{
+        JSONNumberList compact = new JSONNumberList();
+        while(true){
+            scanNumber();
+            if(!compact.add(numbers)){
+                return null;
+            }
+            int c = nextNonWhiteSpace();
+            if(c == ']'){
+                break;
+            }
+            if(c != ','){
+                throw mismatch("',' or ']'");
+            }
+            pos++;
+            if(!isNumberStart(nextNonWhiteSpace())){
+                return null;
+            }
+        }
+        pos++;
+        compact.trim();
+        return compact;
+    }
+
+    static boolean isNumberStart(int c){
+        return c == '-' || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Reads a string whose opening quote has been consumed. Raw bytes are collected until the
+     * closing quote or an escape and only then decoded, so a multi-byte character is never split
+     * across window boundaries. Strings made of ASCII only, the vast majority, skip UTF-8 decoding
+     * and validation altogether.
+     * */
+    String parseString() throws Exception{
+        StringBuilder sb = null;
+        byteCount = 0;
+        long start = position();
+        boolean ascii = true;
+        while(true){
+            int p = pos;
+            int l = limit;
+            ByteBuffer b = buf;
+            byte c = 0;
+            int high = 0;
+            while(p < l){
+                c = b.get(p);
+                if(c == '"' || c == '\\'){
+                    break;
+                }
+                high |= c;
+                p++;
+            }
+            if(high < 0){
+                ascii = false;
+            }
+            if(p == l){
+                appendBytes(pos, p);
+                pos = p;
+                if(!remap(offset + p)){
+                    throw new Exception("Unterminated string at position " + (start - 1) + ".");
+                }
+                continue;
+            }
+            if(sb == null && byteCount == 0 && c == '"'){
+                String s = decode(pos, p, ascii);
+                pos = p + 1;
+                return s;
+            }
+            appendBytes(pos, p);
+            if(sb == null){
+                sb = scratch;
+                sb.setLength(0);
+            }
+            decodeUTF8(bytes, 0, byteCount, position() - byteCount, sb);
+            byteCount = 0;
+            pos = p + 1;
+            if(c == '"'){
+                return sb.toString();
+            }
+            parseEscape(sb);
+        }
+    }
+
+    /**
+     * Reads a key whose opening quote has been consumed. Plain ASCII keys are hashed while
+     * scanning and looked up in the key table straight from the input bytes; others are decoded
+     * by parseString() and then canonicalized.
+     * */
+    String parseKey() throws Exception{
+        int hash = 0;
+        for(int p = pos; p < limit; p++){
+            byte c = buf.get(p);
+            if(c == '"'){
+                String key = keys.lookupAscii(buf, pos, p, hash);
+                pos = p + 1;
+                return key;
+            }
+            if(c == '\\' || c < 0){
+                break;
+            }
+            hash = 31 * hash + c;
+        }
+        return keys.intern(parseString());
+    }
+
+    /**
+     * Decodes the bytes between from and to of the current window.
+     * */
+    String decode(int from, int to, boolean ascii) throws Exception{
+        int n = to - from;
+        byte[] src;
+        int srcFrom;
+        if(buf.hasArray()){
+            src = buf.array();
+            srcFrom = buf.arrayOffset() + from;
+        }else{
+            byteCount = 0;
+            appendBytes(from, to);
+            byteCount = 0;
+            src = bytes;
+            srcFrom = 0;
+        }
+        if(ascii){
+            return new String(src, srcFrom, n, StandardCharsets.ISO_8859_1);
+        }
+        StringBuilder sb = scratch;
+        sb.setLength(0);
+        decodeUTF8(src, srcFrom, srcFrom + n, offset + from, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Strict UTF-8 decoder: malformed, overlong and surrogate encodings are reported at their
+     * position in the input instead of being replaced.
+     * */
+    static void decodeUTF8(byte[] src, int from, int to, long position, StringBuilder out) throws Exception{
+        int i = from;
+        while(i < to){
+            int b = src[i];
+            if(b >= 0){
+                out.append((char) b);
+                i++;
+                continue;
+            }
+            int need;
+            int cp;
+            int min;
+            if((b & 0xE0) == 0xC0){
+                need = 1;
+                cp = b & 0x1F;
+                min = 0x80;
+            }else if((b & 0xF0) == 0xE0){
+                need = 2;
+                cp = b & 0x0F;
+                min = 0x800;
+            }else if((b & 0xF8) == 0xF0){
+                need = 3;
+                cp = b & 0x07;
+                min = 0x10000;
+            }else{
+                throw malformed(position + i - from);
+            }
+            if(i + need >= to){
+                throw malformed(position + i - from);
+            }
+            for(int k = 1; k <= need; k++){
+                int c = src[i + k];
+                if((c & 0xC0) != 0x80){
+                    throw malformed(position + i - from);
+                }
+                cp = (cp << 6) | (c & 0x3F);
+            }
+            if(cp < min || cp > 0x10FFFF || (cp >= 0xD800 && cp <= 0xDFFF)){
+                throw malformed(position + i - from);
+            }
+            if(cp >= 0x10000){
+                out.append(Character.highSurrogate(cp));
+                out.append(Character.lowSurrogate(cp));
+            }else{
+                out.append((char) cp);
+            }
+            i += need + 1;
+        }
+    }
+
+    static Exception malformed(long position){
+        return new Exception("Malformed UTF-8 at position " + position + ".");
+    }
+
+    void appendBytes(int from, int to){
+        int n = to - from;
+        if(byteCount + n > bytes.length){
+            byte[] grown = new byte[Math.max(bytes.length * 2, byteCount + n)];
+            System.arraycopy(bytes, 0, grown, 0, byteCount);
+            bytes = grown;
+        }
+        ByteBuffer view = buf.duplicate();
+        view.limit(to);
+        view.position(from);
+        view.get(bytes, byteCount, n);
+        byteCount += n;
+    }
+
+    void parseEscape(StringBuilder sb) throws Exception{
+        if(!ensure(1)){
+            throw new Exception("Unterminated escape at position " + position() + ".");
+        }
+        byte e = buf.get(pos++);
+        switch (e){
+            case '"':  sb.append('"');  break;
+            case '\\': sb.append('\\'); break;
+            case '/':  sb.append('/');  break;
+            case 'b':  sb.append('\b'); break;
+            case 'f':  sb.append('\f'); break;
+            case 'n':  sb.append('\n'); break;
+            case 'r':  sb.append('\r'); break;
+            case 't':  sb.append('\t'); break;
+            case 'u':
+                if(!ensure(4)){
+                    throw new Exception("Truncated unicode escape at position " + position() + ".");
+                }
+                int code = 0;
+                for(int k = 0; k < 4; k++){
+                    int digit = Character.digit(buf.get(pos + k), 16);
+                    if(digit < 0){
+                        throw new Exception("Illegal unicode escape at position " + position() + ".");
+                    }
+                    code = (code << 4) | digit;
+                }
+                sb.append((char) code);
+                pos += 4;
+                break;
+            default:
+                throw new Exception("Illegal escape '\\" + (char) e + "' at position " + (position() - 1) + ".");
+        }
+    }
+
+    Number parseNumber() throws Exception{
+        scanNumber();
+        return numbers.toNumber();
+    }
+
+    /**
+     * Parses the number at pos into numbers without boxing it and returns its kind.
+     * */
+    int scanNumber() throws Exception{
+        int p = pos;
+        while(true){
+            while(p < limit && isNumberByte(buf.get(p))){
+                p++;
+            }
+            if(p < limit || offset + p >= length){
+                break;
+            }
+            int scanned = p - pos;
+            remap(offset + pos);
+            p = pos + scanned;
+            if(p >= limit && offset + p < length){
+                throw new Exception("Number longer than the window of " + windowSize + " bytes at position " + position() + ".");
+            }
+        }
+        int kind = numbers.parse(buf, pos, p, offset);
+        pos = p;
+        return kind;
+    }
+
+    static boolean isNumberByte(byte c){
+        return (c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '-' || c == '+';
+    }
+
+    void parseLiteral(String word) throws Exception{
+        int n = word.length();
+        if(!ensure(n)){
+            throw new Exception("When parsing word '" + word + "', input ended at position " + position() + ".");
+        }
+        for(int i = 0; i < n; i++){
+            if(buf.get(pos + i) != word.charAt(i)){
+                throw new Exception("When parsing word '" + word + "', Mismatch: expect '" + word.charAt(i)
+                        + "', but see '" + (char) buf.get(pos + i) + "' at position " + (position() + i) + ".");
+            }
+        }
+        pos += n;
+    }
+
+    int nextNonWhiteSpace() throws IOException{
+        while(true){
+            if(pos == limit && !remap(offset + pos)){
+                return -1;
+            }
+            byte c = buf.get(pos);
+            if(c == ' ' || c == '\n' || c == '\t' || c == '\r'){
+                pos++;
+            }else{
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Makes at least n bytes available from pos on, moving the window if needed.
+     * */
+    boolean ensure(int n) throws IOException{
+        return limit - pos >= n || (remap(offset + pos) && limit - pos >= n);
+    }
+
+    /**
+     * Moves back to an earlier position of the input, mapping the window again if it has moved
+     * past it.
+     * */
+    void seek(long position) throws IOException{
+        if(position >= offset){
+            pos = (int) (position - offset);
+        }else{
+            remap(position);
+        }
+    }
+
+    /**
+     * Maps the next window so that it starts at the given position of the input. Returns false
+     * when there is nothing left to map.
+     * */
+    boolean remap(long from) throws IOException{
+        if(channel == null || from >= length){
+            return false;
+        }
+        long size = Math.min(windowSize, length - from);
+        buf = channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+        offset = from;
+        pos = 0;
+        limit = (int) size;
+        return true;
+    }
+
+    void enterNesting() throws Exception{
+        if(++depth > maxDepth){
+            throw new Exception("Nesting deeper than " + maxDepth + " levels at position " + position() + ".");
+        }
+    }
+
+    Exception mismatch(String expected){
+        if(pos >= limit){
+            return new Exception("Mismatch: expect " + expected + ", but the input ended at position " + position() + ".");
+        }
+        return new Exception("Mismatch: expect " + expected + ", but see '" + (char) buf.get(pos) + "' at position " + position() + ".");
+    }
+}
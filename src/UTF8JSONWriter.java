@@ -0,0 +1,308 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A JSONWriter that encodes straight to UTF-8 bytes, the counterpart of UTF8JSONLoader: no String
+ * of the document and no getBytes() copy of it are made.
+ *
+ * Strings are escaped and encoded in one pass, with runs of plain ASCII stored a byte per char.
+ * Without a sink the output collects in a growing byte[] that is kept across reset(), so a
+ * threadLocal() writer serves request after request without allocating; hand the bytes on with
+ * writeTo() or buffer(). With an OutputStream or a channel the buffer has a fixed size and is
+ * drained whenever it fills.
+ *
+ * <pre>
+ *     UTF8JSONWriter writer = UTF8JSONWriter.threadLocal();
+ *     writer.value(response);
+ *     writer.writeTo(channel);
+ * </pre>
+ * */
+public class UTF8JSONWriter extends JSONWriter {
+
+    /**
+     * Largest buffer threadLocal() keeps between uses; a bigger one left by a large document is
+     * dropped so that idle threads do not pin it.
+     * */
+    static final int MAX_RETAINED_BUFFER = 1 << 16;
+
+    /**
+     * Most bytes one char can take: a control character escaped as backslash, u and four hex digits.
+     * */
+    static final int MAX_CHAR_BYTES = 6;
+
+    private static final ThreadLocal<UTF8JSONWriter> LOCAL = ThreadLocal.withInitial(UTF8JSONWriter::new);
+
+    byte[] bytes;
+
+    final OutputStream stream;
+
+    final WritableByteChannel channel;
+
+
+    /**
+     * Writes into memory; read the result with toByteArray(), buffer() or writeTo().
+     * */
+    public UTF8JSONWriter(){
+        this.bytes = new byte[DEFAULT_BUFFER_SIZE];
+        this.stream = null;
+        this.channel = null;
+    }
+
+    public UTF8JSONWriter(OutputStream out){
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public UTF8JSONWriter(OutputStream out, int bufferSize){
+        this.bytes = new byte[checkBufferSize(bufferSize)];
+        this.stream = out;
+        this.channel = null;
+    }
+
+    public UTF8JSONWriter(WritableByteChannel out){
+        this(out, DEFAULT_BUFFER_SIZE);
+    }
+
+    public UTF8JSONWriter(WritableByteChannel out, int bufferSize){
+        this.bytes = new byte[checkBufferSize(bufferSize)];
+        this.stream = null;
+        this.channel = out;
+    }
+
+    /**
+     * The in-memory writer of the calling thread, reset and ready for the next document. Its
+     * output is only valid until the next threadLocal() call on the same thread.
+     * */
+    public static UTF8JSONWriter threadLocal(){
+        UTF8JSONWriter writer = LOCAL.get();
+        if(writer.bytes.length > MAX_RETAINED_BUFFER){
+            writer.bytes = new byte[DEFAULT_BUFFER_SIZE];
+        }
+        return writer.reset();
+    }
+
+    /**
+     * value written as UTF-8 JSON.
+     * */
+    public static byte[] toJSONBytes(Object value){
+        UTF8JSONWriter writer = new UTF8JSONWriter();
+        try{
+            writer.value(value);
+        }catch(IOException e){
+            throw new IllegalStateException(e);
+        }
+        return writer.toByteArray();
+    }
+
+    private static int checkBufferSize(int bufferSize){
+        if(bufferSize < 16){
+            throw new IllegalArgumentException("bufferSize must be at least 16: " + bufferSize);
+        }
+        return bufferSize;
+    }
+
+    /**
+     * Forgets the output and the open scopes, keeping the buffer.
+     * */
+    public UTF8JSONWriter reset(){
+        count = 0;
+        stackSize = 1;
+        stack[0] = EMPTY_DOCUMENT;
+        return this;
+    }
+
+    /**
+     * Bytes written and not yet drained to a sink.
+     * */
+    public int size(){
+        return count;
+    }
+
+    public byte[] toByteArray(){
+        byte[] copy = new byte[count];
+        System.arraycopy(bytes, 0, copy, 0, count);
+        return copy;
+    }
+
+    /**
+     * The output as a ByteBuffer over the writer's own array, valid until the next write or reset.
+     * */
+    public ByteBuffer buffer(){
+        return ByteBuffer.wrap(bytes, 0, count);
+    }
+
+    public void writeTo(OutputStream out) throws IOException{
+        out.write(bytes, 0, count);
+    }
+
+    public void writeTo(WritableByteChannel out) throws IOException{
+        ByteBuffer b = buffer();
+        while(b.hasRemaining()){
+            out.write(b);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException{
+        drain();
+        if(stream != null){
+            stream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException{
+        flush();
+        if(stream != null){
+            stream.close();
+        }else if(channel != null){
+            channel.close();
+        }
+        if(stackSize != 1){
+            throw new IOException("Incomplete document.");
+        }
+    }
+
+    @Override
+    void write(char c) throws IOException{
+        if(count == bytes.length){
+            makeRoom(1);
+        }
+        bytes[count++] = (byte) c;
+    }
+
+    /**
+     * Numbers and literals, which are ASCII.
+     * */
+    @Override
+    void writeRaw(String s, int from, int to) throws IOException{
+        while(from < to){
+            if(count == bytes.length){
+                makeRoom(1);
+            }
+            int end = Math.min(to, from + bytes.length - count);
+            byte[] b = bytes;
+            int n = count;
+            for(int i = from; i < end; i++){
+                b[n++] = (byte) s.charAt(i);
+            }
+            count = n;
+            from = end;
+        }
+    }
+
+    @Override
+    void writeString(String s) throws IOException{
+        write('"');
+        int length = s.length();
+        int i = 0;
+        while(i < length){
+            // plain ASCII is copied a byte per char for as long as it fits
+            byte[] b = bytes;
+            int n = count;
+            int end = Math.min(length, i + b.length - n);
+            while(i < end){
+                char c = s.charAt(i);
+                if(c < 0x20 || c >= 0x80 || c == '"' || c == '\\'){
+                    break;
+                }
+                b[n++] = (byte) c;
+                i++;
+            }
+            count = n;
+            if(i == length){
+                break;
+            }
+            if(i == end){
+                makeRoom(1);
+                continue;
+            }
+            if(count + MAX_CHAR_BYTES > bytes.length){
+                makeRoom(MAX_CHAR_BYTES);
+            }
+            i = writeChar(s, i);
+        }
+        write('"');
+    }
+
+    /**
+     * Writes the escaped or multi-byte char at i, with room for MAX_CHAR_BYTES, and returns the
+     * index after it. A lone surrogate is written as '?', as String.getBytes() does.
+     * */
+    private int writeChar(String s, int i){
+        byte[] b = bytes;
+        int n = count;
+        char c = s.charAt(i++);
+        if(c < 0x80){
+            b[n++] = '\\';
+            switch (c){
+                case '"':  b[n++] = '"';  break;
+                case '\\': b[n++] = '\\'; break;
+                case '\n': b[n++] = 'n';  break;
+                case '\r': b[n++] = 'r';  break;
+                case '\t': b[n++] = 't';  break;
+                case '\b': b[n++] = 'b';  break;
+                case '\f': b[n++] = 'f';  break;
+                default:
+                    b[n++] = 'u';
+                    b[n++] = '0';
+                    b[n++] = '0';
+                    b[n++] = (byte) HEX[c >> 4];
+                    b[n++] = (byte) HEX[c & 0xF];
+            }
+        }else if(c < 0x800){
+            b[n++] = (byte) (0xC0 | c >> 6);
+            b[n++] = (byte) (0x80 | c & 0x3F);
+        }else if(!Character.isSurrogate(c)){
+            b[n++] = (byte) (0xE0 | c >> 12);
+            b[n++] = (byte) (0x80 | c >> 6 & 0x3F);
+            b[n++] = (byte) (0x80 | c & 0x3F);
+        }else if(Character.isHighSurrogate(c) && i < s.length() && Character.isLowSurrogate(s.charAt(i))){
+            int cp = Character.toCodePoint(c, s.charAt(i++));
+            b[n++] = (byte) (0xF0 | cp >> 18);
+            b[n++] = (byte) (0x80 | cp >> 12 & 0x3F);
+            b[n++] = (byte) (0x80 | cp >> 6 & 0x3F);
+            b[n++] = (byte) (0x80 | cp & 0x3F);
+        }else{
+            b[n++] = '?';
+        }
+        count = n;
+        return i;
+    }
+
+    /**
+     * Frees at least n bytes at the end of the buffer: drains it to the sink, or grows it when
+     * there is none.
+     * */
+    void makeRoom(int n) throws IOException{
+        if(stream != null || channel != null){
+            drain();
+        }else{
+            byte[] grown = new byte[Math.max(bytes.length * 2, count + n)];
+            System.arraycopy(bytes, 0, grown, 0, count);
+            bytes = grown;
+        }
+    }
+
+    /**
+     * Hands the buffer to the sink; without one the bytes stay where they are.
+     * */
+    @Override
+    void drain() throws IOException{
+        if(count == 0){
+            return;
+        }
+        if(stream != null){
+            stream.write(bytes, 0, count);
+        }else if(channel != null){
+            ByteBuffer b = ByteBuffer.wrap(bytes, 0, count);
+            while(b.hasRemaining()){
+                channel.write(b);
+            }
+        }else{
+            return;
+        }
+        count = 0;
+    }
+}
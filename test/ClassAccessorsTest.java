@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ClassAccessors, and superToString output built from it.
+ * */
+class ClassAccessorsTest {
+
+    static class Point {
+        private int x = 1;
+        Integer y = null;
+        static String kind = "point";
+    }
+
+    static class Line {
+        final Point from = new Point();
+        String name = "a\tb";
+    }
+
+    static class Empty {
+    }
+
+    @Test
+    void accessorsAreWorkedOutOncePerClass(){
+        ClassAccessors point = ClassAccessors.of(Point.class);
+        assertSame(point, ClassAccessors.of(Point.class));
+        assertFalse(point.scalar);
+        List<String> labels = new ArrayList<>();
+        for(ClassAccessors.FieldWriter field : point.fields){
+            labels.add(field.label);
+            assertNull(field.failure);
+        }
+        assertEquals(3, labels.size());
+        assertTrue(labels.contains("\t\"x\":"));
+        assertTrue(labels.contains("\t\"kind\":"));
+
+        assertTrue(ClassAccessors.of(Integer.class).scalar);
+        assertTrue(ClassAccessors.of(String.class).scalar);
+        assertEquals(0, ClassAccessors.of(String.class).fields.length);
+        assertEquals(0, ClassAccessors.of(Empty.class).fields.length);
+    }
+
+    @Test
+    void gettersReadInstanceAndStaticFields(){
+        Point p = new Point();
+        for(ClassAccessors.FieldWriter field : ClassAccessors.of(Point.class).fields){
+            Object value = field.get(p);
+            if(field.label.contains("\"x\"")){
+                assertEquals(1, value);
+            }else if(field.label.contains("\"y\"")){
+                assertNull(value);
+            }else{
+                assertEquals("point", value);
+            }
+        }
+    }
+
+    @Test
+    void unreadableFieldsAreWrittenAsNullWithoutPrinting() throws Exception{
+        PrintStream err = System.err;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        ClassAccessors.FieldWriter field;
+        System.setErr(new PrintStream(printed));
+        try{
+            field = new ClassAccessors.FieldWriter(String.class.getDeclaredField("value"));
+        }finally{
+            System.setErr(err);
+        }
+        assertEquals(0, printed.size());
+        assertInstanceOf(RuntimeException.class, field.failure);
+        assertNull(field.get("abc"));
+        assertEquals(Collections.emptyMap(), JSONWriter.unreadableFields(Line.class));
+        assertEquals(Collections.emptyMap(), ClassAccessors.of(Point.class).failures());
+    }
+
+    @Test
+    void superToStringWritesEveryDeclaredField(){
+        SimpleJSONLoader loader = new SimpleJSONLoader();
+        String point = loader.superToString(new Point(), "");
+        assertTrue(point.contains("\t\"x\":\"1\""), point);
+        assertTrue(point.contains("\t\"y\":null"), point);
+        assertTrue(point.contains("\t\"kind\":\"point\""), point);
+
+        String line = loader.superToString(new Line(), "");
+        assertTrue(line.contains("\t\"from\":"), line);
+        assertTrue(line.contains("\t\t\"x\":\"1\""), line);
+        assertEquals(line, loader.superToString(new Line(), ""));
+        assertEquals("\"5\"", loader.superToString(5, ""));
+        assertEquals("", loader.superToString(new Empty(), ""));
+        assertNull(loader.superToString(null, ""));
+    }
+}
@@ -0,0 +1,216 @@
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SimpleJSONLoader.load() into plain classes, records and generic types, checked against what
+ * parse(), JSONWriter and superToString() make of the same documents.
+ * */
+class ClassBindingTest {
+
+    enum Star { ONE, TWO, THREE }
+
+    static class Hotel {
+        static int created;
+        transient int cache = -1;
+        String name;
+        double price;
+        boolean canBook;
+        Star star;
+        int[] rooms;
+        Room best;
+    }
+
+    static class Room {
+        long id;
+        Character block;
+        BigDecimal area;
+    }
+
+    static class Search {
+        String city;
+        List<Hotel> hotels;
+        Map<String, List<Integer>> prices;
+        Set<String> tags;
+        SortedMap<String, Long> counts;
+        Stay[] stays;
+        BigInteger total;
+    }
+
+    record Stay(String hotel, int nights, List<String> guests, Room room) {}
+
+    static class Box<T extends Number> {
+        T value;
+        List<T> values;
+    }
+
+    static class Scalars {
+        int n;
+        long big;
+        double d;
+        float f;
+        short s;
+        byte b;
+        boolean ok;
+        Boolean flag;
+        char c;
+        Integer none;
+        String name;
+        Room room;
+    }
+
+    static List<Map<String, Stay>> nestedStays;
+
+    static final String SEARCH = "{\"city\":\"深圳市\",\"hotels\":[{\"name\":\"A \\\"1\\\"\",\"price\":189.5,"
+            + "\"canBook\":true,\"star\":\"TWO\",\"rooms\":[1,2,3],\"best\":{\"id\":18178020,\"block\":\"B\","
+            + "\"area\":12.50}},{\"name\":\"B\",\"price\":0,\"canBook\":false,\"star\":null,\"rooms\":[],\"best\":null}],"
+            + "\"prices\":{\"a\":[1,2],\"b\":[]},\"tags\":[\"x\",\"y\",\"x\"],\"counts\":{\"z\":1,\"a\":2},"
+            + "\"stays\":[{\"hotel\":\"A\",\"nights\":2,\"guests\":[\"p\",\"q\"],\"room\":{\"id\":7}}],"
+            + "\"total\":123456789012345678901234567890}";
+
+    @Test
+    void plainClassesAreFilled() throws Exception{
+        Search search = new SimpleJSONLoader(SEARCH).load(Search.class);
+        assertEquals("深圳市", search.city);
+        assertEquals(2, search.hotels.size());
+        Hotel a = search.hotels.get(0);
+        assertEquals("A \"1\"", a.name);
+        assertEquals(189.5, a.price);
+        assertTrue(a.canBook);
+        assertEquals(Star.TWO, a.star);
+        assertArrayEquals(new int[]{1, 2, 3}, a.rooms);
+        assertEquals(18178020L, a.best.id);
+        assertEquals('B', (char) a.best.block);
+        assertEquals(new BigDecimal("12.50"), a.best.area);
+        assertEquals(-1, a.cache);
+        assertNull(search.hotels.get(1).star);
+        assertNull(search.hotels.get(1).best);
+        assertEquals(Arrays.asList(1, 2), search.prices.get("a"));
+        assertEquals(Arrays.asList("x", "y"), Arrays.asList(search.tags.toArray()));
+        assertEquals(Arrays.asList("a", "z"), Arrays.asList(search.counts.keySet().toArray()));
+        assertEquals(new BigInteger("123456789012345678901234567890"), search.total);
+    }
+
+    @Test
+    void recordsAreCreatedWithTheirComponents() throws Exception{
+        Stay stay = new SimpleJSONLoader("{\"guests\":[\"p\"],\"nights\":3,\"hotel\":\"A\"}").load(Stay.class);
+        assertEquals(new Stay("A", 3, Collections.singletonList("p"), null), stay);
+        assertEquals(new Stay(null, 0, null, null), new SimpleJSONLoader("{}").load(Stay.class));
+        Search search = new SimpleJSONLoader(SEARCH).load(Search.class);
+        assertEquals("A", search.stays[0].hotel());
+        assertEquals(7L, search.stays[0].room().id);
+    }
+
+    @Test
+    void genericTypesAreFollowed() throws Exception{
+        Type type = ClassBindingTest.class.getDeclaredField("nestedStays").getGenericType();
+        Object loaded = new SimpleJSONLoader("[{\"x\":{\"hotel\":\"A\",\"nights\":1}},{}]").load(type);
+        assertEquals(Arrays.asList(Collections.singletonMap("x", new Stay("A", 1, null, null)), Collections.emptyMap()),
+                loaded);
+
+        Box<?> box = new SimpleJSONLoader("{\"value\":2.5,\"values\":[1,10000000000,1e3]}").load(Box.class);
+        assertEquals(2.5, box.value);
+        assertEquals(Arrays.asList(1, 10000000000L, 1000.0), box.values);
+    }
+
+    @Test
+    void unknownMembersAreCheckedAndSkipped() throws Exception{
+        String json = "{\"extra\":{\"deep\":[1,{\"a\":\"}]\"}]},\"name\":\"A\",\"more\":null,\"price\":2}";
+        Hotel hotel = new SimpleJSONLoader(json).load(Hotel.class);
+        assertEquals("A", hotel.name);
+        assertEquals(2.0, hotel.price);
+
+        for(String malformed : new String[]{
+                "{\"extra\":[1,,2],\"name\":\"A\"}",
+                "{\"extra\":{\"a\" 1},\"name\":\"A\"}",
+                "{\"extra\":tru,\"name\":\"A\"}",
+                "{\"extra\":01,\"name\":\"A\"}",
+                "{\"name\":\"A\"} x",
+                "{\"name\":\"A\"}}",
+        }){
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(malformed).load(Hotel.class), malformed);
+        }
+    }
+
+    @Test
+    void mismatchedTypesFail(){
+        String[] inputs = {"{\"price\":\"cheap\"}", "{\"rooms\":{}}", "{\"star\":\"FOUR\"}", "{\"best\":[]}", "[]"};
+        for(String json : inputs){
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).load(Hotel.class), json);
+        }
+        assertThrows(Exception.class, () -> new SimpleJSONLoader("{\"nights\":1.5}").load(Stay.class));
+        assertThrows(Exception.class, () -> new SimpleJSONLoader("{\"id\":1e30}").load(Room.class));
+    }
+
+    @Test
+    void untypedLoadMatchesParse() throws Exception{
+        SimpleJSONLoader parsed = new SimpleJSONLoader(SEARCH);
+        parsed.parse();
+        assertEquals(parsed.dataMap, new SimpleJSONLoader(SEARCH).load(Map.class));
+        assertEquals(parsed.dataMap, new SimpleJSONLoader(SEARCH).load(Object.class));
+    }
+
+    @Test
+    void writerOutputLoadsBack() throws Exception{
+        Search search = new SimpleJSONLoader(SEARCH).load(Search.class);
+        String written = JSONWriter.toJSONString(search);
+        Search again = new SimpleJSONLoader(written).load(Search.class);
+        assertEquals(written, JSONWriter.toJSONString(again));
+
+        SimpleJSONLoader parsed = new SimpleJSONLoader(written);
+        parsed.parse();
+        assertEquals(parsed.dataMap, new SimpleJSONLoader(JSONWriter.toJSONString(parsed.dataMap)).load(Map.class));
+
+        Stay stay = new Stay("A", 2, Arrays.asList("p", null), null);
+        assertEquals(stay, new SimpleJSONLoader(JSONWriter.toJSONString(stay)).load(Stay.class));
+    }
+
+    @Test
+    void superToStringOutputLoadsBack() throws Exception{
+        Scalars scalars = new Scalars();
+        scalars.n = -3;
+        scalars.big = 3000000000L;
+        scalars.d = 2.5e-7;
+        scalars.f = 1.5f;
+        scalars.s = 300;
+        scalars.b = -8;
+        scalars.ok = true;
+        scalars.flag = false;
+        scalars.c = 'x';
+        scalars.name = "深圳";
+        scalars.room = new SimpleJSONLoader("{\"id\":7,\"block\":\"B\",\"area\":12.50}").load(Room.class);
+        SimpleJSONLoader writer = new SimpleJSONLoader();
+        String written = writer.superToString(scalars, "");
+        Scalars again = new SimpleJSONLoader(written).load(Scalars.class);
+        assertEquals(written, writer.superToString(again, ""));
+        assertEquals(3000000000L, again.big);
+        assertEquals(1.5f, again.f);
+        assertEquals('B', again.room.block);
+        assertEquals(new BigDecimal("12.50"), again.room.area);
+        assertNull(again.none);
+
+        String[] inputs = {"{\"n\":\"\"}", "{\"n\":\" 5\"}", "{\"n\":\"5 \"}", "{\"n\":\"5x\"}",
+                "{\"n\":\"null\"}", "{\"n\":\"\\\"5\\\"\"}", "{\"n\":\"1.5\"}", "{\"b\":\"300\"}",
+                "{\"ok\":\"yes\"}", "{\"ok\":\"1\"}"};
+        for(String json : inputs){
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).load(Scalars.class), json);
+        }
+        assertEquals(5, new SimpleJSONLoader("{\"n\":\"5\"}").load(Scalars.class).n);
+        assertEquals("Cannot read '\"' at position 5 as quoted int.",
+                assertThrows(Exception.class, () -> new SimpleJSONLoader("{\"n\":\"5x\"}").load(Scalars.class)).getMessage());
+    }
+}
@@ -0,0 +1,107 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JSONKeyTable, and the key instances the loaders share through it.
+ * */
+class JSONKeyTableTest {
+
+    @Test
+    void lookupsReturnOneInstancePerKey(){
+        JSONKeyTable table = new JSONKeyTable();
+        String src = "xx\"name\", \"name\"";
+        String first = table.lookup(src, 3, 7, "name".hashCode());
+        assertEquals("name", first);
+        assertSame(first, table.lookup(src, 11, 15, "name".hashCode()));
+
+        ByteBuffer bytes = ByteBuffer.wrap("[\"name\"]".getBytes(StandardCharsets.US_ASCII));
+        assertSame(first, table.lookupAscii(bytes, 2, 6, "name".hashCode()));
+        assertSame(first, table.intern(new String("name")));
+        assertEquals("", table.lookup(src, 3, 3, 0));
+    }
+
+    @Test
+    void longKeysGetFreshStrings(){
+        JSONKeyTable table = new JSONKeyTable(16);
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i <= JSONKeyTable.MAX_KEY_LENGTH; i++){
+            sb.append('k');
+        }
+        String longKey = sb.toString();
+        String src = "\"" + longKey + "\"";
+        String a = table.lookup(src, 1, src.length() - 1, longKey.hashCode());
+        assertEquals(longKey, a);
+        assertNotSame(a, table.lookup(src, 1, src.length() - 1, longKey.hashCode()));
+
+        for(int i = 0; i < 100; i++){
+            table.intern("key" + i);
+        }
+        for(int i = 0; i < 100; i++){
+            assertEquals("key" + i, table.intern(new String("key" + i)));
+        }
+        assertEquals(16, table.keys.length);
+    }
+
+    @Test
+    void keysOfNewSchemasReplaceStaleOnes(){
+        JSONKeyTable table = new JSONKeyTable();
+        for(int i = 0; i < 5000; i++){
+            table.intern("old" + i);
+        }
+        String[] last = new String[200];
+        int hits = 0;
+        for(int round = 0; round < 5; round++){
+            for(int i = 0; i < last.length; i++){
+                String key = table.intern(new String("new" + i));
+                if(round > 0 && key == last[i]){
+                    hits++;
+                }
+                last[i] = key;
+            }
+        }
+        assertTrue(hits > 700, hits + " of 800");
+    }
+
+    @Test
+    void recordsShareTheirKeys() throws Exception{
+        StringBuilder sb = new StringBuilder("{\"rows\": [");
+        for(int i = 0; i < 100; i++){
+            sb.append(i == 0 ? "" : ",").append("{\"id\": ").append(i).append(", \"caf\\u00e9\": \"x\", \"\": 1, \"名\": 2}");
+        }
+        String json = sb.append("]}").toString();
+
+        SimpleJSONLoader loader = new SimpleJSONLoader(json);
+        loader.parse();
+        assertSharedKeys((List<?>) loader.get("rows"));
+
+        UTF8JSONLoader utf8 = new UTF8JSONLoader(json.getBytes(StandardCharsets.UTF_8));
+        utf8.parse();
+        assertSharedKeys((List<?>) utf8.get("rows"));
+
+        UTF8JSONLoader twoStage = new UTF8JSONLoader(json.getBytes(StandardCharsets.UTF_8));
+        twoStage.parseTwoStage();
+        assertSharedKeys((List<?>) twoStage.get("rows"));
+    }
+
+    static void assertSharedKeys(List<?> rows){
+        List<?> first = new ArrayList<>(((Map<?, ?>) rows.get(0)).keySet());
+        assertEquals(Arrays.asList("id", "café", "", "名"), first);
+        for(Object row : rows){
+            List<?> keys = new ArrayList<>(((Map<?, ?>) row).keySet());
+            for(int i = 0; i < keys.size(); i++){
+                assertSame(first.get(i), keys.get(i), keys.get(i).toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * JSONLoader, called from many threads at once on the same instance.
+ * */
+class JSONLoaderTest {
+
+    @Test
+    void concurrentCallsBuildTheTreesOfOneThread() throws Exception{
+        Random random = new Random(5);
+        List<String> documents = new ArrayList<>();
+        List<Map<String, Object>> expected = new ArrayList<>();
+        for(int n = 0; n < 200; n++){
+            String json = "{\"doc\": " + StructuralIndexTest.randomDocument(random) + ", \"n\": " + n + "}";
+            documents.add(json);
+            SimpleJSONLoader loader = new SimpleJSONLoader(json);
+            loader.parse();
+            expected.add(loader.dataMap);
+        }
+
+        JSONLoader shared = JSONLoader.DEFAULT;
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try{
+            List<Future<Boolean>> results = new ArrayList<>();
+            for(int t = 0; t < 8; t++){
+                int offset = t;
+                results.add(pool.submit(() -> {
+                    for(int round = 0; round < 5; round++){
+                        for(int i = 0; i < documents.size(); i++){
+                            int n = (i + offset * 17) % documents.size();
+                            Map<String, Object> tree = n % 2 == 0
+                                    ? shared.load(documents.get(n))
+                                    : shared.load(documents.get(n).getBytes(StandardCharsets.UTF_8));
+                            assertEquals(expected.get(n), tree, documents.get(n));
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for(Future<Boolean> result : results){
+                assertEquals(true, result.get());
+            }
+        }finally{
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void treesBelongToTheCaller() throws Exception{
+        Map<String, Object> first = JSONLoader.parse("{\"a\": [1, 2]}");
+        Map<String, Object> second = JSONLoader.parse("{\"a\": [3]}");
+        assertNotSame(first, second);
+        assertEquals(Arrays.asList(1, 2), first.get("a"));
+        first.put("b", 1);
+        assertEquals(Collections.singletonMap("a", Arrays.asList(3)), second);
+    }
+
+    @Test
+    void settingsMakeNewLoaders() throws Exception{
+        JSONLoader compact = JSONLoader.DEFAULT.withCompactNumericArrays(true);
+        assertInstanceOf(JSONNumberList.class, compact.load("{\"a\": [1, 2]}").get("a"));
+        assertEquals(Arrays.asList(1, 2), JSONLoader.DEFAULT.load("{\"a\": [1, 2]}").get("a"));
+
+        JSONLoader shallow = JSONLoader.DEFAULT.withMaxDepth(2);
+        assertThrows(Exception.class, () -> shallow.load("{\"a\": [[1]]}"));
+        assertEquals(Collections.singletonMap("a", Arrays.asList(1)), shallow.load("{\"a\": [1]}"));
+        assertThrows(IllegalArgumentException.class, () -> JSONLoader.DEFAULT.withMaxDepth(0));
+    }
+
+    static class Reentrant {
+        int n;
+        List<Object> tags;
+        transient Map<String, Object> nested;
+
+        Reentrant() throws Exception{
+            nested = JSONLoader.DEFAULT.load("{\"x\": [9], \"y\": \"z\"}");
+        }
+    }
+
+    @Test
+    void callsNestedInACallUseTheirOwnLoader() throws Exception{
+        String json = "{\"n\": 1, \"inner\": {\"n\": 2, \"tags\": [\"b\"]}, \"tags\": [\"a\", 3]}";
+        Reentrant outer = JSONLoader.DEFAULT.load(json, Reentrant.class);
+        assertEquals(1, outer.n);
+        assertEquals(Arrays.asList("a", 3), outer.tags);
+        assertEquals(Arrays.asList(9), outer.nested.get("x"));
+        assertEquals("z", outer.nested.get("y"));
+        assertEquals(Collections.singletonMap("a", 1), JSONLoader.parse("{\"a\": 1}"));
+    }
+
+    @Test
+    void aFailedCallDoesNotAffectTheNext() throws Exception{
+        assertThrows(Exception.class, () -> JSONLoader.parse("{\"a\": [1,"));
+        assertEquals(Collections.singletonList(2), JSONLoader.DEFAULT.select("{\"a\": [1, 2]}", "a[1]"));
+        assertEquals(Collections.singletonMap("a", 1), JSONLoader.parse("{\"a\": 1}"));
+    }
+}
@@ -0,0 +1,206 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Numeric arrays loaded with setCompactNumericArrays(true), in every loader and mode.
+ * */
+class JSONNumberListTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void backingArrayWidensAsValuesRequire() throws Exception{
+        JSONNumberList ints = compact("[1, -2, 2147483647]");
+        assertEquals(JSONNumberParser.INT, ints.kind());
+        assertArrayEquals(new int[]{1, -2, 2147483647}, ints.toIntArray());
+        assertEquals(Arrays.asList(1, -2, 2147483647), ints);
+
+        JSONNumberList longs = compact("[1, 3000000000, -9223372036854775808]");
+        assertEquals(JSONNumberParser.LONG, longs.kind());
+        assertArrayEquals(new long[]{1, 3000000000L, Long.MIN_VALUE}, longs.toLongArray());
+        assertEquals(3000000000L, longs.get(1));
+        assertThrows(ArithmeticException.class, () -> longs.getInt(1));
+
+        JSONNumberList doubles = compact("[1, 2.5, 3000000000, -1e-3]");
+        assertEquals(JSONNumberParser.DOUBLE, doubles.kind());
+        assertArrayEquals(new double[]{1.0, 2.5, 3.0e9, -1e-3}, doubles.toDoubleArray());
+        assertEquals(1.0, doubles.get(0));
+        assertEquals(2.5, doubles.getDouble(1));
+        assertThrows(IllegalStateException.class, () -> doubles.getLong(2));
+        assertThrows(IllegalStateException.class, doubles::toIntArray);
+        assertArrayEquals(new double[]{1.0, -2.0, 2147483647.0}, ints.toDoubleArray());
+    }
+
+    @Test
+    void listsAreReadOnly() throws Exception{
+        JSONNumberList list = compact("[1, 2]");
+        assertThrows(UnsupportedOperationException.class, () -> list.add(3));
+        assertThrows(UnsupportedOperationException.class, () -> list.set(0, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> list.getInt(-1));
+    }
+
+    @Test
+    void inexactArraysStayOrdinaryLists() throws Exception{
+        Object big = load("[1, 123456789012345678901234567890]", false, true);
+        assertEquals(Arrays.asList(1, new BigInteger("123456789012345678901234567890")), big);
+        assertFalse(big instanceof JSONNumberList);
+
+        Object mixed = load("[9007199254740993, 0.5]", false, true);
+        assertEquals(Arrays.asList(9007199254740993L, 0.5), mixed);
+        assertFalse(mixed instanceof JSONNumberList);
+
+        assertEquals(Arrays.asList(1, 2, "x", 3), load("[1, 2, \"x\", 3]", false, true));
+        assertEquals(Arrays.asList(1, Arrays.asList(2)), load("[1, [2]]", false, true));
+        assertEquals(Arrays.asList("x", 1, 2.5), load("[\"x\", 1, 2.5]", false, true));
+    }
+
+    @Test
+    void everyModeBuildsTheSameLists() throws Exception{
+        String[] arrays = {"[]", "[0]", "[1, 2, 3]", "[1, 2.5]", "[-1, 3000000000]", "[1e3, 2]",
+                "[1, \"x\"]", "[9007199254740993, 0.5]", "[[1, 2], [3.5]]", "[1, null]"};
+        for(String json : arrays){
+            Object plain = load(json, false, false);
+            for(boolean twoStage : new boolean[]{false, true}){
+                Object compact = load(json, twoStage, true);
+                assertSameValues(plain, compact, json);
+            }
+            UTF8JSONLoader utf8 = new UTF8JSONLoader(("{\"v\":" + json + "}").getBytes(StandardCharsets.UTF_8));
+            utf8.setCompactNumericArrays(true);
+            utf8.parse();
+            assertEquals(load(json, false, true), utf8.get("v"), json);
+        }
+    }
+
+    @Test
+    void arraysThatStopBeingNumericKeepEveryElementAsParsed() throws Exception{
+        String[] arrays = {"[1, 2.5, \"x\"]", "[1, 9007199254740993, 0.5]", "[1, 3000000000, 2.5, null]",
+                "[1, 2, 123456789012345678901234567890]", "[7, [1, 2.5, true], 3]", "[1, [2, \"x\"], 3.5]",
+                "[1.5, 2, {\"a\": [3, 4e0, \"y\"]}]", "[-1, 2 , 3.0 ,\n false]"};
+        for(String json : arrays){
+            Object plain = load(json, false, false);
+            for(boolean twoStage : new boolean[]{false, true}){
+                assertEquals(plain, load(json, twoStage, true), json);
+                assertSameTypes(plain, load(json, twoStage, true), json);
+            }
+            UTF8JSONLoader utf8 = new UTF8JSONLoader(("{\"v\":" + json + "}").getBytes(StandardCharsets.UTF_8));
+            utf8.setCompactNumericArrays(true);
+            utf8.parse();
+            assertSameTypes(plain, utf8.get("v"), json);
+        }
+    }
+
+    @Test
+    void rereadingAcrossMappedWindows() throws Exception{
+        StringBuilder sb = new StringBuilder("{\"v\": [");
+        for(int i = 0; i < 40; i++){
+            sb.append(i).append(", ");
+        }
+        String json = sb.append("\"x\", 1.5], \"w\": [1, 2]}").toString();
+        Path file = dir.resolve("mixed.json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        SimpleJSONLoader plain = new SimpleJSONLoader(json);
+        plain.parse();
+        for(int window : new int[]{16, 37, 4096}){
+            try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+                UTF8JSONLoader loader = new UTF8JSONLoader(channel, window);
+                loader.setCompactNumericArrays(true);
+                loader.parse();
+                assertSameTypes(plain.get("v"), loader.get("v"), "window " + window);
+                assertInstanceOf(JSONNumberList.class, loader.get("w"), "window " + window);
+            }
+        }
+    }
+
+    @Test
+    void largeArraysAreCompact() throws Exception{
+        StringBuilder sb = new StringBuilder("[");
+        List<Integer> expected = new ArrayList<>();
+        for(int i = 0; i < 100000; i++){
+            sb.append(i == 0 ? "" : ",").append(i * 7);
+            expected.add(i * 7);
+        }
+        JSONNumberList list = compact(sb.append(']').toString());
+        assertEquals(expected, list);
+        assertEquals(100000, list.toIntArray().length);
+        assertEquals(699993, list.getInt(99999));
+    }
+
+    /**
+     * Lists hold equal elements, numbers compared by value since compact lists widen their type.
+     * */
+    static void assertSameValues(Object expected, Object actual, String json){
+        if(expected instanceof List){
+            List<?> e = (List<?>) expected;
+            List<?> a = (List<?>) actual;
+            assertEquals(e.size(), a.size(), json);
+            for(int i = 0; i < e.size(); i++){
+                assertSameValues(e.get(i), a.get(i), json);
+            }
+        }else if(expected instanceof Number && actual instanceof Number){
+            assertEquals(((Number) expected).doubleValue(), ((Number) actual).doubleValue(), json);
+        }else{
+            assertEquals(expected, actual, json);
+        }
+    }
+
+    /**
+     * Lists hold equal elements of the same classes.
+     * */
+    static void assertSameTypes(Object expected, Object actual, String json){
+        if(expected instanceof List){
+            List<?> e = (List<?>) expected;
+            List<?> a = (List<?>) actual;
+            assertEquals(e.size(), a.size(), json);
+            for(int i = 0; i < e.size(); i++){
+                assertSameTypes(e.get(i), a.get(i), json);
+            }
+        }else if(expected instanceof Map){
+            for(Map.Entry<?, ?> e : ((Map<?, ?>) expected).entrySet()){
+                assertSameTypes(e.getValue(), ((Map<?, ?>) actual).get(e.getKey()), json);
+            }
+        }else{
+            assertEquals(expected, actual, json);
+            if(expected != null){
+                assertEquals(expected.getClass(), actual.getClass(), json);
+            }
+        }
+    }
+
+    static JSONNumberList compact(String json) throws Exception{
+        Object value = load(json, false, true);
+        assertInstanceOf(JSONNumberList.class, value, json);
+        JSONNumberList list = (JSONNumberList) value;
+        Object twoStage = load(json, true, true);
+        assertEquals(list, twoStage, json);
+        assertEquals(list.kind(), ((JSONNumberList) twoStage).kind(), json);
+        return list;
+    }
+
+    static Object load(String json, boolean twoStage, boolean compact) throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader("{\"v\":" + json + "}");
+        loader.setTwoStage(twoStage);
+        loader.setCompactNumericArrays(compact);
+        loader.parse();
+        Map<String, Object> map = loader.dataMap;
+        return map.get("v");
+    }
+}
@@ -0,0 +1,146 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * JSONNumberParser on chars and bytes, and the numbers every loader builds with it, against the
+ * JDK's own parsing of the same text.
+ * */
+class JSONNumberParserTest {
+
+    static final String[] EDGES = {
+            "0", "-0", "7", "-7", "2147483647", "2147483648", "-2147483648", "-2147483649",
+            "9223372036854775807", "9223372036854775808", "-9223372036854775808", "-9223372036854775809",
+            "123456789012345678901234567890", "0.0", "-0.0", "0.1", "0.30000000000000004", "1e0", "1E+2",
+            "1e-2", "2.5E-3", "9007199254740993", "9007199254740993.0", "1.7976931348623157e308",
+            "4.9e-324", "2.2250738585072014E-308", "2.2250738585072011e-308", "1e-400", "123.456e-2",
+            "1.00000000000000011102230246251565404236316680908203125", "0.000000000000000000000000000001",
+            "100000000000000000000000e-10", "3.141592653589793238462643383279",
+    };
+
+    static final String[] MALFORMED = {
+            "-", "01", "-01", "1.", ".5", "1e", "1e+", "+1", "--1", "1.2.3", "0x10", "1e5.5", "1-2", "",
+    };
+
+    @Test
+    void edgeCasesMatchTheJDK() throws Exception{
+        for(String text : EDGES){
+            check(text);
+        }
+    }
+
+    @Test
+    void randomNumbersMatchTheJDK() throws Exception{
+        Random random = new Random(7);
+        for(int i = 0; i < 20000; i++){
+            double d = Double.longBitsToDouble(random.nextLong());
+            if(!Double.isNaN(d) && !Double.isInfinite(d)){
+                check(Double.toString(d));
+            }
+            check(Long.toString(random.nextLong() >> random.nextInt(64)));
+            StringBuilder sb = new StringBuilder();
+            if(random.nextBoolean()){
+                sb.append('-');
+            }
+            sb.append(1 + random.nextInt(9));
+            int digits = random.nextInt(25);
+            if(digits > 0 && random.nextBoolean()){
+                sb.append('.');
+            }
+            for(; digits > 0; digits--){
+                sb.append(random.nextInt(10));
+            }
+            sb.append('e').append(random.nextInt(640) - 330);
+            check(sb.toString());
+        }
+    }
+
+    @Test
+    void malformedNumbersFail(){
+        JSONNumberParser numbers = new JSONNumberParser();
+        for(String text : MALFORMED){
+            assertThrows(Exception.class, () -> numbers.parse(text, 0, text.length()), text);
+            ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+            assertThrows(Exception.class, () -> numbers.parse(bytes, 0, text.length(), 0), text);
+            assertThrows(Exception.class, () -> new SimpleJSONLoader("{\"n\":" + text + "}").parse(), text);
+        }
+    }
+
+    /**
+     * The Number text should become: Integer, Long or BigInteger for integers, Double otherwise.
+     * */
+    static Number expected(String text){
+        if(text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0){
+            BigInteger big = new BigInteger(text);
+            if(big.bitLength() < 32){
+                return big.intValue();
+            }
+            return big.bitLength() < 64 ? (Number) big.longValue() : big;
+        }
+        return Double.parseDouble(text);
+    }
+
+    @Test
+    void writtenNumbersParseBack() throws Exception{
+        Random random = new Random(11);
+        List<Object> numbers = new ArrayList<>();
+        for(int i = 0; i < 2000; i++){
+            double d = Double.longBitsToDouble(random.nextLong());
+            if(!Double.isNaN(d) && !Double.isInfinite(d)){
+                numbers.add(d);
+            }
+            numbers.add(random.nextLong());
+            numbers.add(random.nextInt());
+        }
+        numbers.add(new BigInteger("-98765432109876543210"));
+        String json = JSONWriter.toJSONString(Collections.singletonMap("n", numbers));
+        SimpleJSONLoader loader = new SimpleJSONLoader(json);
+        loader.parse();
+        List<?> parsed = (List<?>) loader.get("n");
+        assertEquals(numbers.size(), parsed.size());
+        for(int i = 0; i < numbers.size(); i++){
+            Object expected = numbers.get(i);
+            if(expected instanceof Long && (long) expected == (int) (long) expected){
+                expected = (int) (long) expected;
+            }
+            assertEquals(expected, parsed.get(i), json);
+        }
+    }
+
+    static void check(String text) throws Exception{
+        Number expected = expected(text);
+        JSONNumberParser numbers = new JSONNumberParser();
+        numbers.parse(text, 0, text.length());
+        assertEquals(expected, numbers.toNumber(), text);
+
+        String padded = "[" + text + "]";
+        ByteBuffer bytes = ByteBuffer.wrap(padded.getBytes(StandardCharsets.US_ASCII));
+        numbers.parse(bytes, 1, padded.length() - 1, 0);
+        assertEquals(expected, numbers.toNumber(), text);
+
+        String json = "{\"n\":" + text + "}";
+        SimpleJSONLoader loader = new SimpleJSONLoader(json);
+        loader.parse();
+        assertEquals(expected, loader.get("n"), text);
+
+        UTF8JSONLoader utf8 = new UTF8JSONLoader(json.getBytes(StandardCharsets.UTF_8));
+        utf8.parse();
+        assertEquals(expected, utf8.get("n"), text);
+
+        JSONReader reader = new JSONReader(new StringReader(json));
+        assertEquals(Collections.singletonMap("n", expected), reader.readValue(), text);
+
+        JSONTape tape = new SimpleJSONLoader().reset(json).parseTape();
+        assertEquals(expected, tape.getNumber(tape.field(JSONTape.ROOT, "n")), text);
+    }
+}
@@ -0,0 +1,108 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JSONPath compilation, and SimpleJSONLoader.select() against the values of the parsed tree.
+ * */
+class JSONPathTest {
+
+    static final String HOTELS = "{\"hotels\": [{\"name\": \"A\", \"result\": {\"city\": \"深圳\", \"stars\": 4}},"
+            + " {\"name\": \"B\", \"result\": {\"city\": \"北京\"}, \"tags\": [1, [2, 3]]},"
+            + " {\"name\": \"C\\u0021\", \"a b\": true}], \"count\": 3, \"na\\\"me\": \"q\"}";
+
+    @Test
+    void pathsCompileToSteps(){
+        JSONPath path = JSONPath.compile("$.hotels[0].result['a b'][*]");
+        assertEquals(5, path.length());
+        assertEquals(Arrays.asList("hotels", null, "result", "a b", null), Arrays.asList(path.names));
+        assertEquals(JSONPath.ANY, path.indexes[4]);
+        assertEquals(0, path.indexes[1]);
+        assertTrue(path.hasWildcard());
+        assertEquals("a.b", JSONPath.compile("a.b").toString());
+        assertEquals(false, JSONPath.compile("a[2].b").hasWildcard());
+        assertTrue(JSONPath.compile("a.*").hasWildcard());
+        assertEquals(false, JSONPath.compile("a['*']").hasWildcard());
+
+        String[] bad = {"a[", "a[x]", "a[-1]", "a..b", "a[0]b", "."};
+        for(String p : bad){
+            assertThrows(IllegalArgumentException.class, () -> JSONPath.compile(p), p);
+        }
+    }
+
+    @Test
+    void selectFindsWhatTheTreeHolds() throws Exception{
+        assertEquals(Collections.singletonList("深圳"), select("hotels[0].result.city"));
+        assertEquals(Arrays.asList("A", "B", "C!"), select("hotels[*].name"));
+        assertEquals(Arrays.asList("深圳", "北京"), select("$.hotels[*].result.city"));
+        assertEquals(Collections.singletonList(Arrays.asList(2, 3)), select("hotels[1].tags[1]"));
+        assertEquals(Collections.singletonList(true), select("hotels[2]['a b']"));
+        assertEquals(Collections.singletonList("q"), select("['na\"me']"));
+        assertEquals(Collections.singletonList(3), select("count"));
+        assertEquals(Arrays.asList(3, "q"), select("*").subList(1, 3));
+        assertEquals(Collections.emptyList(), select("hotels[5].name"));
+        assertEquals(Collections.emptyList(), select("count.x"));
+        assertEquals(Collections.emptyList(), select("missing"));
+
+        SimpleJSONLoader loader = new SimpleJSONLoader(HOTELS);
+        loader.parse();
+        List<?> hotels = (List<?>) loader.get("hotels");
+        assertEquals(((Map<?, ?>) hotels.get(1)).get("result"), select("hotels[1].result").get(0));
+        assertEquals(loader.dataMap, select("$").get(0));
+    }
+
+    @Test
+    void selectFirstStopsAtTheFirstOfDuplicateKeys() throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader("{\"a\": 1, \"b\": {\"c\": 2}, \"a\": 3}");
+        assertEquals(1, loader.selectFirst("a"));
+        assertEquals(2, loader.selectFirst("b.c"));
+        assertNull(loader.selectFirst("b.d"));
+        assertEquals(Collections.singletonList(1), loader.select("a"));
+        assertEquals(Arrays.asList(1, Collections.singletonMap("c", 2), 3), loader.select("*"));
+    }
+
+    @Test
+    void malformedDocumentsFailEvenAfterTheMatch(){
+        String[] malformed = {"{\"a\": 5, \"junk\": [1}", "{\"a\": 5, \"junk\": [\"x\" \"y\"]}", "{\"a\": 5} trailing",
+                "{\"a\": 5, \"n\": 01}", "{\"a\": 5,}", "{\"junk\": [1}, \"a\": 5}", "{\"a\": tru}"};
+        for(String json : malformed){
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).parse(), json);
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).select("a"), json);
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).selectFirst("a"), json);
+        }
+    }
+
+    @Test
+    void rootsThatAreNotObjectsFail(){
+        String[] roots = {"[1,2]", "5", "\"x\"", " [{\"a\": 1}]", ""};
+        for(String json : roots){
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).parse(), json);
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).select("a"), json);
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).select("$"), json);
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).selectFirst("a"), json);
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).selectUnchecked("a"), json);
+        }
+    }
+
+    @Test
+    void selectUncheckedOnlyBalancesWhatItSkips() throws Exception{
+        String json = "{\"a\": 5, \"junk\": [1 2, tru]} trailing";
+        assertThrows(Exception.class, () -> new SimpleJSONLoader(json).select("a"));
+        assertEquals(Collections.singletonList(5), new SimpleJSONLoader(json).selectUnchecked("a"));
+        assertEquals(Arrays.asList("A", "B", "C!"), new SimpleJSONLoader(HOTELS).selectUnchecked("hotels[*].name"));
+        assertEquals(Collections.singletonList("北京"), new SimpleJSONLoader(HOTELS).selectUnchecked("hotels[1].result.city"));
+        assertThrows(Exception.class, () -> new SimpleJSONLoader("{\"junk\": [1, \"a\": 5}").selectUnchecked("a"));
+    }
+
+    static List<Object> select(String path) throws Exception{
+        return new SimpleJSONLoader(HOTELS).select(path);
+    }
+}
@@ -0,0 +1,108 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SimpleJSONLoader with a projection set, against the full tree of the same documents.
+ * */
+class JSONProjectionTest {
+
+    @Test
+    void onlyProjectedFieldsAreLoaded() throws Exception{
+        Map<String, Object> doc = project(JSONPathTest.HOTELS, "hotels.name", "count");
+        assertEquals(Arrays.asList("hotels", "count"), Arrays.asList(doc.keySet().toArray()));
+        List<?> hotels = (List<?>) doc.get("hotels");
+        assertEquals(3, hotels.size());
+        assertEquals(Collections.singletonMap("name", "A"), hotels.get(0));
+        assertEquals(Collections.singletonMap("name", "C!"), hotels.get(2));
+        assertEquals(3, doc.get("count"));
+
+        assertEquals(doc, project(JSONPathTest.HOTELS, "$.hotels[*].name", "count"));
+    }
+
+    @Test
+    void wholeMembersKeepEverythingBelowThem() throws Exception{
+        Map<String, Object> full = full(JSONPathTest.HOTELS);
+        Map<String, Object> doc = project(JSONPathTest.HOTELS, "hotels.result", "hotels.name");
+        List<?> hotels = (List<?>) doc.get("hotels");
+        List<?> fullHotels = (List<?>) full.get("hotels");
+        assertEquals(((Map<?, ?>) fullHotels.get(1)).get("result"), ((Map<?, ?>) hotels.get(1)).get("result"));
+        assertNull(((Map<?, ?>) hotels.get(1)).get("tags"));
+
+        assertEquals(full, project(JSONPathTest.HOTELS, "*"));
+        assertEquals(full.get("hotels"), project(JSONPathTest.HOTELS, "hotels", "hotels.name").get("hotels"));
+    }
+
+    @Test
+    void wildcardsMergeWithNamedMembers() throws Exception{
+        String json = "{\"a\": {\"x\": 1, \"y\": {\"p\": 2, \"q\": 3}}, \"b\": {\"x\": 4, \"y\": 5}}";
+        Map<String, Object> expected = new LinkedHashMap<>();
+        Map<String, Object> a = new LinkedHashMap<>();
+        a.put("x", 1);
+        a.put("y", Collections.singletonMap("q", 3));
+        expected.put("a", a);
+        expected.put("b", Collections.singletonMap("x", 4));
+        assertEquals(expected, project(json, "*.x", "a.y.q"));
+    }
+
+    @Test
+    void scalarsOnTheWayToAPathAreDropped() throws Exception{
+        Map<String, Object> doc = project("{\"a\": 1, \"b\": [1, {\"c\": 2, \"d\": 3}, \"s\"]}", "a.c", "b.c");
+        assertFalse(doc.containsKey("a"));
+        assertEquals(Arrays.asList(1, Collections.singletonMap("c", 2), "s"), doc.get("b"));
+    }
+
+    @Test
+    void projectionOfEveryFieldIsTheFullTree() throws Exception{
+        Random random = new Random(11);
+        for(int n = 0; n < 200; n++){
+            String json = "{\"doc\": " + StructuralIndexTest.randomDocument(random) + ", \"n\": 1}";
+            assertEquals(full(json), project(json, "doc", "n"), json);
+            assertEquals(Collections.singletonMap("n", 1), project(json, "n"), json);
+        }
+    }
+
+    @Test
+    void droppedValuesAreStillChecked(){
+        String[] malformed = {"{\"a\": 1, \"junk\": [1}", "{\"a\": 1, \"junk\": tru}", "{\"a\": 1} x",
+                "{\"a\": 1}}", "{\"a\": 1, \"n\": 01}", "{\"a\": 1,}", "{\"junk\": {\"k\" 1}, \"a\": 1}"};
+        for(String json : malformed){
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).parse(), json);
+            assertThrows(Exception.class, () -> project(json, "a"), json);
+        }
+        assertThrows(IllegalArgumentException.class, () -> JSONProjection.compile("a[0]"));
+    }
+
+    @Test
+    void noPathsClearTheProjection() throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader(JSONPathTest.HOTELS);
+        loader.setProjection("count");
+        loader.setProjection();
+        assertNull(loader.getProjection());
+        loader.parse();
+        assertEquals(full(JSONPathTest.HOTELS), loader.dataMap);
+    }
+
+    static Map<String, Object> project(String json, String... paths) throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader(json);
+        loader.setProjection(paths);
+        loader.parse();
+        return loader.dataMap;
+    }
+
+    static Map<String, Object> full(String json) throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader(json);
+        loader.parse();
+        return loader.dataMap;
+    }
+}
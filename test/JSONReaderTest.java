@@ -0,0 +1,145 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JSONReader, mostly with a buffer far smaller than the tokens it has to read.
+ * */
+class JSONReaderTest {
+
+    @Test
+    void tokensComeOutInDocumentOrder() throws Exception{
+        JSONReader reader = new JSONReader(new StringReader("{\"a\": [1, \"s\", true, null], \"b\": {}}"));
+        List<Object> seen = new ArrayList<>();
+        JSONToken token;
+        while((token = reader.nextToken()) != JSONToken.END_DOCUMENT){
+            seen.add(reader.getValue() == null ? token : token + ":" + reader.getValue());
+        }
+        assertEquals(Arrays.asList(JSONToken.BEGIN_OBJECT, "NAME:a", JSONToken.BEGIN_ARRAY, "NUMBER:1", "STRING:s",
+                "BOOLEAN:true", JSONToken.NULL, JSONToken.END_ARRAY, "NAME:b", JSONToken.BEGIN_OBJECT,
+                JSONToken.END_OBJECT, JSONToken.END_OBJECT), seen);
+    }
+
+    @Test
+    void typedCallsWalkAnObject() throws Exception{
+        JSONReader reader = new JSONReader(new StringReader("{\"id\": 7, \"name\": \"x\\ty\", \"ok\": false, \"none\": null, \"tags\": []}"), 8);
+        reader.beginObject();
+        assertEquals("id", reader.nextName());
+        assertEquals(7, reader.nextNumber());
+        assertEquals("name", reader.nextName());
+        assertEquals("x\ty", reader.nextString());
+        assertEquals("ok", reader.nextName());
+        assertFalse(reader.nextBoolean());
+        assertEquals("none", reader.nextName());
+        reader.nextNull();
+        assertEquals("tags", reader.nextName());
+        reader.beginArray();
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(JSONToken.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    void valuesLongerThanTheBufferAreReadWhole() throws Exception{
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < 5000; i++){
+            sb.append((char) ('a' + i % 26));
+        }
+        String escaped = sb + "\\n\\u00e9" + sb;
+        JSONReader reader = new JSONReader(new StringReader("[\"" + sb + "\", \"" + escaped + "\", 12345678901234567890123]"), 16);
+        reader.beginArray();
+        assertEquals(sb.toString(), reader.nextString());
+        assertEquals(sb + "\n\u00e9" + sb, reader.nextString());
+        assertEquals(new BigInteger("12345678901234567890123"), reader.nextNumber());
+        reader.endArray();
+    }
+
+    @Test
+    void numbersKeepTheSmallestFittingType() throws Exception{
+        JSONReader reader = new JSONReader(new StringReader("[-5, 3000000000, 9223372036854775807, 1.5, -2e3]"));
+        reader.beginArray();
+        assertEquals(-5, reader.nextNumber());
+        assertEquals(3000000000L, reader.nextNumber());
+        assertEquals(Long.MAX_VALUE, reader.nextNumber());
+        assertEquals(1.5, reader.nextNumber());
+        assertEquals(-2000.0, reader.nextNumber());
+        reader.endArray();
+    }
+
+    @Test
+    void skipValuePassesOverWholeSubtrees() throws Exception{
+        JSONReader reader = new JSONReader(new StringReader("{\"skip\": {\"deep\": [[1, {\"x\": \"]}\"}], \"\\\"\"]}, \"keep\": 2}"), 8);
+        reader.beginObject();
+        assertEquals("skip", reader.nextName());
+        reader.skipValue();
+        assertEquals("keep", reader.nextName());
+        assertEquals(2, reader.nextNumber());
+        reader.endObject();
+        assertThrows(Exception.class, reader::skipValue);
+    }
+
+    @Test
+    void readValueBuildsTheLoaderTree() throws Exception{
+        String json = "{\"a\": [1, 2.5, \"s\"], \"b\": {\"c\": null, \"d\": true}}";
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("c", null);
+        inner.put("d", true);
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("a", Arrays.asList(1, 2.5, "s"));
+        expected.put("b", inner);
+        JSONReader reader = new JSONReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(expected, reader.readValue());
+        assertEquals(JSONToken.END_DOCUMENT, reader.peek());
+    }
+
+    @Test
+    void topLevelValuesMayFollowEachOther() throws Exception{
+        String lines = "{\"n\": 1}\n{\"n\": 2}\r\n\"深圳\" 4";
+        JSONReader reader = new JSONReader(new InputStreamReader(new ByteArrayInputStream(lines.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8), 8);
+        List<Object> values = new ArrayList<>();
+        while(reader.peek() != JSONToken.END_DOCUMENT){
+            values.add(reader.readValue());
+        }
+        assertEquals(4, values.size());
+        assertEquals(2, ((Map<?, ?>) values.get(1)).get("n"));
+        assertEquals("深圳", values.get(2));
+        assertEquals(4, values.get(3));
+        assertNull(reader.getValue());
+    }
+
+    @Test
+    void malformedInputFailsWithItsPosition(){
+        String[] malformed = {"[1 2]", "{\"a\" 1}", "{\"a\": 1,}", "[tru]", "\"open", "{1: 2}", "]", "[\"\\q\"]"};
+        for(String json : malformed){
+            Exception e = assertThrows(Exception.class, () -> new JSONReader(new StringReader(json), 8).readValue(), json);
+            assertTrue(e.getMessage().contains("position"), e.getMessage());
+        }
+    }
+
+    @Test
+    void nestingIsLimitedByMaxDepth() throws Exception{
+        String deep = SimpleJSONLoaderTest.nested(SimpleJSONLoader.DEFAULT_MAX_DEPTH + 1);
+        assertThrows(Exception.class, () -> new JSONReader(new StringReader(deep)).readValue());
+        JSONReader reader = new JSONReader(new StringReader(deep));
+        reader.setMaxDepth(SimpleJSONLoader.DEFAULT_MAX_DEPTH + 1);
+        reader.skipValue();
+        assertEquals(JSONToken.END_DOCUMENT, reader.peek());
+    }
+}
@@ -0,0 +1,152 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SimpleJSONLoader.parseTape() against the Map/List tree parse() builds for the same document.
+ * */
+class JSONTapeTest {
+
+    static final String HOTEL = "{\n  \"finish_order\": \"true\",\n  \"result\": {\n    \"city\": \"深圳市\",\n"
+            + "    \"district\": \"罗湖区\",\n    \"price\": 189,\n    \"rate\": 4.75,\n    \"can_book\": true,\n"
+            + "    \"star_score\": null,\n    \"roomtypeid\": 18178020123,\n    \"themeCategory\": [\"特价频道\"],\n"
+            + "    \"escapes\": \"tab\\tquote\\\"slash\\\\u\\u00e9\",\n    \"empty\": {},\n    \"none\": [],\n"
+            + "    \"huge\": 123456789012345678901234567890\n  }\n}";
+
+    @Test
+    void toObjectMatchesParse() throws Exception{
+        check(HOTEL);
+        check("{}");
+        check("{\"a\":[[],[{}],[[1]]],\"\":\"\",\"b\":{\"c\":{\"d\":[true,false,null,-0.5e-3]}}}");
+        check("{\"long\":\"" + repeat("x\\\"y", 30000) + "\"}");
+    }
+
+    @Test
+    void randomDocumentsMatchParse() throws Exception{
+        Random random = new Random(3);
+        JSONTape tape = new JSONTape();
+        for(int k = 0; k < 500; k++){
+            StringBuilder sb = new StringBuilder();
+            object(sb, random, 0);
+            String json = sb.toString();
+            SimpleJSONLoader loader = new SimpleJSONLoader(json);
+            loader.parse();
+            assertEquals(loader.dataMap, new SimpleJSONLoader().reset(json).parseTape(tape).toObject(JSONTape.ROOT),
+                    json);
+        }
+    }
+
+    @Test
+    void gettersReadTheSameValues() throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader(HOTEL);
+        loader.parse();
+        @SuppressWarnings("unchecked")
+        Map<String, Object> result = (Map<String, Object>) loader.get("result");
+
+        JSONTape tape = new SimpleJSONLoader().reset(HOTEL).parseTape();
+        int node = tape.field(JSONTape.ROOT, "result");
+        assertEquals(result.size(), tape.size(node));
+        assertEquals(result.get("city"), tape.getString(tape.field(node, "city")));
+        assertEquals(189, tape.getInt(tape.field(node, "price")));
+        assertEquals(4.75, tape.getDouble(tape.field(node, "rate")));
+        assertEquals(18178020123L, tape.getLong(tape.field(node, "roomtypeid")));
+        assertTrue(tape.getBoolean(tape.field(node, "can_book")));
+        assertTrue(tape.isNull(tape.field(node, "star_score")));
+        assertEquals(result.get("escapes"), tape.getString(tape.field(node, "escapes")));
+        assertEquals(result.get("huge"), tape.getNumber(tape.field(node, "huge")));
+        assertEquals(-1, tape.first(tape.field(node, "empty")));
+        assertEquals(-1, tape.field(node, "missing"));
+        int themes = tape.field(node, "themeCategory");
+        assertEquals("特价频道", tape.getString(tape.element(themes, 0)));
+        assertEquals(-1, tape.element(themes, 1));
+
+        int member = tape.first(node);
+        for(String key : result.keySet()){
+            assertEquals(key, tape.getKey(member));
+            assertEquals(result.get(key), tape.toObject(tape.value(member)));
+            member = tape.next(member);
+        }
+        assertEquals(-1, member);
+        assertThrows(IllegalStateException.class, () -> tape.getString(tape.field(node, "price")));
+        assertThrows(ArithmeticException.class, () -> tape.getLong(tape.field(node, "rate")));
+    }
+
+    @Test
+    void reusedTapeForgetsTheLastDocument() throws Exception{
+        JSONTape tape = new SimpleJSONLoader().reset(HOTEL).parseTape();
+        new SimpleJSONLoader().reset("{\"a\":[1]}").parseTape(tape);
+        assertEquals(Arrays.asList(1), tape.toObject(tape.field(JSONTape.ROOT, "a")));
+        assertEquals(1, tape.size(JSONTape.ROOT));
+        assertTrue(tape.footprint() > 0);
+    }
+
+    @Test
+    void malformedDocumentsFail(){
+        for(String json : new String[]{"", "[1]", "{\"a\":}", "{\"a\":1,}", "{\"a\" 1}", "{\"a\":[1}", "{} x",
+                "{\"a\":\"b}", "{\"a\":01}"}){
+            assertThrows(Exception.class, () -> new SimpleJSONLoader().reset(json).parseTape(), json);
+        }
+    }
+
+    static void check(String json) throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader(json);
+        loader.parse();
+        JSONTape tape = new SimpleJSONLoader().reset(json).parseTape();
+        assertEquals(loader.dataMap, tape.toObject(JSONTape.ROOT), json);
+    }
+
+    static void object(StringBuilder sb, Random random, int depth){
+        sb.append('{');
+        for(int i = random.nextInt(5); i > 0; i--){
+            sb.append("\"k").append(random.nextInt(4)).append(random.nextBoolean() ? "\\n\"" : "\"").append(':');
+            value(sb, random, depth + 1);
+            if(i > 1){
+                sb.append(',');
+            }
+        }
+        sb.append('}');
+    }
+
+    static void value(StringBuilder sb, Random random, int depth){
+        switch (depth > 4 ? random.nextInt(4) : random.nextInt(6)){
+            case 0:
+                sb.append(random.nextLong() >> random.nextInt(64));
+                break;
+            case 1:
+                sb.append(Double.longBitsToDouble(random.nextLong() & 0x7fefffffffffffffL));
+                break;
+            case 2:
+                sb.append(new String[]{"true", "false", "null", "\"\"", "\"\\u20ac\\\\\"", "\"é\""}[random.nextInt(6)]);
+                break;
+            case 3:
+                sb.append('"').append(Long.toString(random.nextLong(), 36)).append('"');
+                break;
+            case 4:
+                sb.append('[');
+                for(int i = random.nextInt(4); i > 0; i--){
+                    value(sb, random, depth + 1);
+                    if(i > 1){
+                        sb.append(',');
+                    }
+                }
+                sb.append(']');
+                break;
+            default:
+                object(sb, random, depth);
+        }
+    }
+
+    static String repeat(String s, int times){
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < times; i++){
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
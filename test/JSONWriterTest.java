@@ -0,0 +1,119 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JSONWriter output, read back with SimpleJSONLoader.parse().
+ * */
+class JSONWriterTest {
+
+    static class Room {
+        static final int VERSION = 2;
+        transient String session = "secret";
+        String guest = "Zhang \"San\"\n";
+        int[] beds = {1, 2};
+        Room next;
+        char grade = 'A';
+    }
+
+    static class Booking {
+        static final int VERSION = 2;
+        transient String session = "secret";
+        String guest = "Zhang \"San\"\n";
+        LocalDate arrival = LocalDate.of(2020, 6, 7);
+        Instant created = Instant.ofEpochSecond(1591488000L);
+        Duration stay = Duration.ofDays(3);
+        UUID id = new UUID(1L, 2L);
+        int[] rooms = {101, 102};
+    }
+
+    @Test
+    void objectsAreWrittenAsTheirFields(){
+        Room room = new Room();
+        room.next = new Room();
+        room.next.guest = null;
+        assertEquals("{\"guest\":\"Zhang \\\"San\\\"\\n\",\"beds\":[1,2],\"next\":"
+                + "{\"guest\":null,\"beds\":[1,2],\"next\":null,\"grade\":\"A\"},\"grade\":\"A\"}", JSONWriter.toJSONString(room));
+    }
+
+    @Test
+    void streamingCallsMustNest() throws Exception{
+        StringWriter out = new StringWriter();
+        JSONWriter writer = new JSONWriter(out);
+        writer.beginObject().name("a").beginArray().value(1).value(2.5).value("x").nullValue().endArray();
+        writer.name("b").value(false).endObject();
+        writer.flush();
+        assertEquals("{\"a\":[1,2.5,\"x\",null],\"b\":false}", out.toString());
+
+        JSONWriter broken = new JSONWriter(new StringWriter());
+        broken.beginObject();
+        assertThrows(IllegalStateException.class, broken::endArray);
+        assertThrows(IllegalStateException.class, () -> broken.name("a").name("b"));
+    }
+
+    @Test
+    void jdkValueTypesAreWrittenAsStrings() throws Exception{
+        String json = JSONWriter.toJSONString(new Booking());
+        assertEquals("{\"guest\":\"Zhang \\\"San\\\"\\n\",\"arrival\":\"2020-06-07\","
+                + "\"created\":\"2020-06-07T00:00:00Z\",\"stay\":\"PT72H\","
+                + "\"id\":\"00000000-0000-0001-0000-000000000002\",\"rooms\":[101,102]}", json);
+        assertEquals(json, new String(UTF8JSONWriter.toJSONBytes(new Booking()), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void superToStringDoesNotFailOnJDKTypes(){
+        String s = new SimpleJSONLoader().superToString(new Booking(), "");
+        assertTrue(s.contains("\"VERSION\":\"2\""), s);
+        assertTrue(s.contains("\"guest\":"), s);
+        assertTrue(s.contains("\"arrival\":\"2020-06-07\""), s);
+        assertTrue(s.contains("\"id\":\"00000000-0000-0001-0000-000000000002\""), s);
+    }
+
+    @Test
+    void writtenValuesParseBack() throws Exception{
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("string", "a\u00e9\u6df1\t\"\\/\u0001");
+        document.put("int", 42);
+        document.put("long", 1L << 40);
+        document.put("double", -2.5e-8);
+        document.put("bool", true);
+        document.put("null", null);
+        document.put("list", Arrays.asList(1, "two", Arrays.asList(3.5, false), new LinkedHashMap<>()));
+        Map<String, Object> nested = new LinkedHashMap<>();
+        nested.put("k", Arrays.asList());
+        document.put("object", nested);
+
+        SimpleJSONLoader loader = new SimpleJSONLoader(JSONWriter.toJSONString(document));
+        loader.parse();
+        assertEquals(document, loader.dataMap);
+
+        StringWriter small = new StringWriter();
+        JSONWriter writer = new JSONWriter(small, 16);
+        writer.value(document);
+        writer.flush();
+        loader = new SimpleJSONLoader(small.toString());
+        loader.parse();
+        assertEquals(document, loader.dataMap);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        writer = new JSONWriter(bytes);
+        writer.value(document);
+        writer.flush();
+        loader = new SimpleJSONLoader().reset(bytes.toByteArray());
+        loader.parse();
+        assertEquals(document, loader.dataMap);
+    }
+}
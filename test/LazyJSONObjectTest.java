@@ -0,0 +1,124 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SimpleJSONLoader in lazy mode, against the eager tree of the same documents.
+ * */
+class LazyJSONObjectTest {
+
+    @Test
+    void lazyTreesEqualEagerTrees() throws Exception{
+        Random random = new Random(3);
+        for(int n = 0; n < 300; n++){
+            String json = "{\"doc\": " + StructuralIndexTest.randomDocument(random) + ", \"n\": 1}";
+            SimpleJSONLoader eager = new SimpleJSONLoader(json);
+            eager.parse();
+            assertEquals(eager.dataMap, lazy(json), json);
+            assertEquals(lazy(json), eager.dataMap, json);
+            assertEquals(eager.dataMap.hashCode(), lazy(json).hashCode(), json);
+            assertEquals(eager.dataMap.toString(), lazy(json).toString(), json);
+        }
+    }
+
+    @Test
+    void valuesAreParsedWhenFirstRead() throws Exception{
+        LazyJSONObject doc = lazy("{\"a\": {\"b\": [1, {\"c\": \"x\"}]}, \"d\": \"y\"}");
+        assertSame(LazyJSONObject.UNREAD, doc.values[0]);
+        assertSame(LazyJSONObject.UNREAD, doc.values[1]);
+        Object a = doc.get("a");
+        assertInstanceOf(LazyJSONObject.class, a);
+        assertSame(a, doc.get("a"));
+        assertSame(LazyJSONObject.UNREAD, doc.values[1]);
+
+        Object b = ((Map<?, ?>) a).get("b");
+        assertInstanceOf(LazyJSONArray.class, b);
+        assertEquals("x", ((Map<?, ?>) ((List<?>) b).get(1)).get("c"));
+        assertEquals(Arrays.asList("a", "d"), new ArrayList<>(doc.keySet()));
+        assertTrue(doc.containsKey("d"));
+        assertFalse(doc.containsKey("z"));
+        assertNull(doc.get("z"));
+    }
+
+    @Test
+    void manyMembersAndDuplicateKeys() throws Exception{
+        StringBuilder sb = new StringBuilder("{");
+        for(int i = 0; i < 100; i++){
+            sb.append("\"k").append(i % 50).append("\": ").append(i).append(", ");
+        }
+        LazyJSONObject doc = lazy(sb.append("\"end\": null}").toString());
+        assertEquals(51, doc.size());
+        assertEquals(99, doc.get("k49"));
+        assertEquals(50, doc.get("k0"));
+        assertEquals("k0", doc.keySet().iterator().next());
+        assertTrue(doc.containsKey("end"));
+        assertNull(doc.get("end"));
+    }
+
+    @Test
+    void lazyMapsAreReadOnly() throws Exception{
+        LazyJSONObject doc = lazy("{\"a\": [1], \"b\": 2}");
+        assertThrows(UnsupportedOperationException.class, () -> doc.put("c", 3));
+        assertThrows(UnsupportedOperationException.class, () -> doc.remove("a"));
+        List<?> a = (List<?>) doc.get("a");
+        assertThrows(UnsupportedOperationException.class, a::clear);
+    }
+
+    @Test
+    void lazyModeRejectsWhatEagerModeRejects(){
+        String[] malformed = {"{\"a\": [1, 2}", "{\"a\": 01}", "{\"a\": \"\\x\"}", "{\"a\": tru}", "{\"a\": 1,}",
+                "{\"a\": 1}}", "{\"a\": 1} x", "[1]", "{\"a\" 1}", "{\"a\": \"open}", "{\"a\": 1.}", "{\"a\": -}"};
+        for(String json : malformed){
+            assertThrows(Exception.class, () -> new SimpleJSONLoader(json).parse(), json);
+            assertThrows(Exception.class, () -> lazy(json), json);
+        }
+        assertThrows(Exception.class, () -> lazy("{\"v\":" + SimpleJSONLoaderTest.nested(SimpleJSONLoader.DEFAULT_MAX_DEPTH) + "}"));
+    }
+
+    @Test
+    void carriageReturnsAreWhiteSpace() throws Exception{
+        LazyJSONObject doc = lazy("\r\n{\r\"a\"\r:\r[\r1\r,\r\"x\"\r]\r}\r\n");
+        assertEquals(Arrays.asList(1, "x"), doc.get("a"));
+    }
+
+    @Test
+    void lazyDocumentsHaveTheirOwnKeyTable() throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader("{\"a\": {\"b\": 1}}");
+        loader.setLazy(true);
+        loader.parse();
+        LazyJSONObject doc = (LazyJSONObject) loader.dataMap;
+        assertNotSame(loader.keys, doc.source.keys);
+        assertEquals(SimpleJSONLoader.LAZY_KEY_CAPACITY, doc.source.keys.keys.length);
+        assertEquals(1, ((Map<?, ?>) doc.get("a")).get("b"));
+    }
+
+    @Test
+    void validatedDocumentsAreNotCheckedAgain() throws Exception{
+        LazyJSONObject doc = lazy("{\"a\": {\"b\": {\"c\": [1, \"x\", {\"d\": null}]}}}");
+        assertTrue(doc.source.validated);
+        Map<?, ?> b = (Map<?, ?>) ((Map<?, ?>) doc.get("a")).get("b");
+        assertEquals(Arrays.asList(1, "x", Collections.singletonMap("d", null)), b.get("c"));
+    }
+
+    static LazyJSONObject lazy(String json) throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader(json);
+        loader.setLazy(true);
+        loader.parse();
+        assertInstanceOf(LazyJSONObject.class, loader.dataMap);
+        return (LazyJSONObject) loader.dataMap;
+    }
+}
@@ -0,0 +1,117 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * NDJSONLoader on buffers and files cut into chunks much smaller than the input.
+ * */
+class NDJSONLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void linesLoadInOrderWhateverTheChunkSize() throws Exception{
+        List<Map<String, Object>> expected = new ArrayList<>();
+        String lines = lines(new Random(9), 300, expected);
+        byte[] bytes = lines.getBytes(StandardCharsets.UTF_8);
+        Path file = dir.resolve("lines.ndjson");
+        Files.write(file, bytes);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try{
+            for(int chunkSize : new int[]{1, 7, 100, 4096, NDJSONLoader.DEFAULT_CHUNK_SIZE}){
+                NDJSONLoader loader = new NDJSONLoader(pool);
+                loader.setChunkSize(chunkSize);
+                assertEquals(expected, loader.load(ByteBuffer.wrap(bytes)), "chunk " + chunkSize);
+                assertEquals(expected, loader.load(file), "chunk " + chunkSize);
+            }
+        }finally{
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void consumersSeeEveryObject() throws Exception{
+        List<Map<String, Object>> expected = new ArrayList<>();
+        String lines = lines(new Random(10), 200, expected);
+        NDJSONLoader loader = new NDJSONLoader();
+        loader.setChunkSize(64);
+        ConcurrentLinkedQueue<Object> seen = new ConcurrentLinkedQueue<>();
+        loader.load(ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8)), seen::add);
+        List<Integer> ns = new ArrayList<>();
+        for(Object object : seen){
+            ns.add((Integer) ((Map<?, ?>) object).get("n"));
+        }
+        Collections.sort(ns);
+        List<Integer> all = new ArrayList<>();
+        for(int i = 0; i < expected.size(); i++){
+            all.add(i);
+        }
+        assertEquals(all, ns);
+    }
+
+    @Test
+    void blankLinesAndCarriageReturnsAreSkipped() throws Exception{
+        String lines = "\n{\"a\": 1}\r\n   \r\n\t\n{\"a\": [2]}  \n\n{\"a\": \"x\"}";
+        List<Map<String, Object>> objects = new NDJSONLoader().load(ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3, objects.size());
+        assertEquals(1, objects.get(0).get("a"));
+        assertEquals("x", objects.get(2).get("a"));
+        assertEquals(Collections.emptyList(), new NDJSONLoader().load(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    void malformedLinesFailWithTheirFilePosition() throws Exception{
+        String good = "{\"a\": 1}\n";
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < 20; i++){
+            sb.append(good);
+        }
+        int position = sb.length() + 8;
+        String lines = sb.append("{\"a\": 1} {\"b\": 2}\n").append(good).toString();
+        Path file = dir.resolve("bad.ndjson");
+        Files.write(file, lines.getBytes(StandardCharsets.UTF_8));
+
+        NDJSONLoader loader = new NDJSONLoader();
+        loader.setChunkSize(32);
+        Exception e = assertThrows(Exception.class, () -> loader.load(file));
+        assertTrue(e.getMessage().contains("at position " + (position + 1)), e.getMessage());
+        e = assertThrows(Exception.class, () -> loader.load(ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8))));
+        assertTrue(e.getMessage().contains("the end of the line"), e.getMessage());
+
+        assertThrows(Exception.class, () -> loader.load(ByteBuffer.wrap("{\"a\": [1,\n2]}\n".getBytes(StandardCharsets.UTF_8))));
+        assertThrows(Exception.class, () -> loader.load(ByteBuffer.wrap("[1]\n".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(1, loader.load(ByteBuffer.wrap(good.getBytes(StandardCharsets.UTF_8))).get(0).get("a"));
+    }
+
+    /**
+     * count lines of random objects, each with its line number as "n", whose trees go to expected.
+     * */
+    static String lines(Random random, int count, List<Map<String, Object>> expected) throws Exception{
+        StringBuilder sb = new StringBuilder();
+        for(int n = 0; n < count; n++){
+            String json = "{\"n\": " + n + ", \"doc\": " + StructuralIndexTest.randomDocument(random).replace('\n', ' ') + "}";
+            SimpleJSONLoader loader = new SimpleJSONLoader(json);
+            loader.parse();
+            expected.add(loader.dataMap);
+            sb.append(json).append(n % 3 == 0 ? "\r\n" : "\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,163 @@
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * ParallelJSONLoader against UTF8JSONLoader on documents cut into tiny chunks, so that cuts fall
+ * inside strings, next to backslashes and in the middle of elements larger than a chunk.
+ * */
+class ParallelJSONLoaderTest {
+
+    static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    static final String[] TRICKY = {
+            "[]",
+            " [ ] ",
+            "[1]",
+            "[\"a,b\", \"]\", \"[\", \"{\", \"}\"]",
+            "[\"\\\"\", \"\\\\\", \"\\\\\\\"\", \"x\\\\\", 1]",
+            "[{\"k\":\"\\\"],[\"},[\"\\\\\",\",\"]]",
+            "[\"\\u0041\\n\\t\", \"深圳市\", \"a\\\"b\\\\\\\\\\\"c\"]",
+            "[[[[[[1,2],[3]]]]],{\"a\":{\"b\":{\"c\":[4,5,{\"d\":\",\"}]}}}]",
+            "\n\t[\r\n{\"a\" : [1 , 2] } ,\r\n\"long element " + repeat("xy,\\\"[]", 20) + "\" , null,true,false,-1.5e3]\n",
+    };
+
+    @AfterAll
+    static void shutdown(){
+        POOL.shutdown();
+    }
+
+    @Test
+    void trickyDocumentsMatchAtEveryChunkSize() throws Exception{
+        for(String json : TRICKY){
+            for(int chunkSize = 1; chunkSize <= json.length() + 1; chunkSize++){
+                assertEquals(expected(json), load(json, chunkSize), json + " at chunk size " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void randomDocumentsMatch() throws Exception{
+        Random random = new Random(42);
+        for(int k = 0; k < 300; k++){
+            StringBuilder sb = new StringBuilder("[");
+            int elements = random.nextInt(12);
+            for(int i = 0; i < elements; i++){
+                if(i > 0){
+                    sb.append(random.nextBoolean() ? "," : " ,\n");
+                }
+                value(sb, random, 0);
+            }
+            String json = sb.append(']').toString();
+            List<Object> expected = expected(json);
+            for(int chunkSize : new int[]{1, 2, 3, 5, 8, 13, 64, json.length()}){
+                assertEquals(expected, load(json, chunkSize), json + " at chunk size " + chunkSize);
+            }
+        }
+    }
+
+    @Test
+    void fileInputMatches() throws Exception{
+        Path file = Files.createTempFile("parallel", ".json");
+        try{
+            for(String json : TRICKY){
+                Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+                for(int chunkSize : new int[]{1, 3, 7, 4096}){
+                    ParallelJSONLoader loader = new ParallelJSONLoader(POOL);
+                    loader.setChunkSize(chunkSize);
+                    assertEquals(expected(json), loader.loadArray(file), json + " at chunk size " + chunkSize);
+                }
+            }
+        }finally{
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    void malformedInputFails(){
+        String[] malformed = {
+                "", "   ", "{\"a\":1}", "[1,2", "[1,2]]", "[1,2] x", "x [1]", "[\"abc]", "[1,,2]", "[1 2]",
+                "[{\"a\":}]", "[\"a\\\"]", "[[1,2]", "[1],[2]",
+        };
+        for(String json : malformed){
+            for(int chunkSize : new int[]{1, 2, 5, 4096}){
+                assertThrows(Exception.class, () -> load(json, chunkSize), json + " at chunk size " + chunkSize);
+            }
+        }
+    }
+
+    static List<Object> load(String json, int chunkSize) throws Exception{
+        ParallelJSONLoader loader = new ParallelJSONLoader(POOL);
+        loader.setChunkSize(chunkSize);
+        return loader.loadArray(ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @SuppressWarnings("unchecked")
+    static List<Object> expected(String json) throws Exception{
+        UTF8JSONLoader loader = new UTF8JSONLoader(("{\"array\":" + json + "}").getBytes(StandardCharsets.UTF_8));
+        loader.parse();
+        return (List<Object>) loader.get("array");
+    }
+
+    static void value(StringBuilder sb, Random random, int depth){
+        switch (depth > 3 ? random.nextInt(3) : random.nextInt(5)){
+            case 0:
+                sb.append(random.nextInt(2000) - 1000);
+                break;
+            case 1:
+                string(sb, random);
+                break;
+            case 2:
+                sb.append(random.nextBoolean() ? "null" : "1.25e-2");
+                break;
+            case 3:
+                sb.append('[');
+                for(int i = random.nextInt(4); i > 0; i--){
+                    value(sb, random, depth + 1);
+                    if(i > 1){
+                        sb.append(',');
+                    }
+                }
+                sb.append(']');
+                break;
+            default:
+                sb.append('{');
+                for(int i = random.nextInt(4); i > 0; i--){
+                    string(sb, random);
+                    sb.append(':');
+                    value(sb, random, depth + 1);
+                    if(i > 1){
+                        sb.append(',');
+                    }
+                }
+                sb.append('}');
+        }
+    }
+
+    static void string(StringBuilder sb, Random random){
+        String[] pieces = {"a", ",", "[", "]", "{", "}", ":", " ", "\\\"", "\\\\", "\\n", "\\u00e9", "é", "市"};
+        sb.append('"');
+        for(int i = random.nextInt(8); i > 0; i--){
+            sb.append(pieces[random.nextInt(pieces.length)]);
+        }
+        sb.append('"');
+    }
+
+    static String repeat(String s, int times){
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < times; i++){
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,109 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tracing of SimpleJSONLoader and SimpleJSONParser through ParseTraceListener.
+ * */
+class ParseTraceListenerTest {
+
+    static final String DOCUMENT = "{\"a\": [\"x\", \"y\"], \"b\": \"z\"}";
+
+    @Test
+    void parsersAreSilentByDefault() throws Exception{
+        String out = captureOut(() -> {
+            new SimpleJSONLoader(DOCUMENT).parse();
+            new SimpleJSONParser(DOCUMENT).parse();
+        });
+        assertEquals("", out);
+        assertSame(ParseTraceListener.NONE, new SimpleJSONLoader(DOCUMENT).getTraceListener());
+        assertSame(ParseTraceListener.NONE, new SimpleJSONParser(DOCUMENT).getTraceListener());
+    }
+
+    @Test
+    void listenerSeesEveryMatch() throws Exception{
+        List<String> events = new ArrayList<>();
+        ParseTraceListener recorder = new ParseTraceListener(){
+            @Override
+            public void matched(char c, int position){
+                events.add(c + "@" + position);
+            }
+        };
+        SimpleJSONLoader loader = new SimpleJSONLoader("{\"k\":[\"v\"]}");
+        loader.setTraceListener(recorder);
+        loader.parse();
+        assertTrue(events.containsAll(Arrays.asList("{@0", ":@4", "[@5", "]@9", "}@10")), events.toString());
+
+        events.clear();
+        SimpleJSONParser parser = new SimpleJSONParser("{\"k\":[\"v\"]}");
+        parser.setTraceListener(recorder);
+        parser.parse();
+        assertTrue(events.containsAll(Arrays.asList("{@0", ":@4", "[@5", "]@9", "}@10")), events.toString());
+
+        loader.setTraceListener(null);
+        assertSame(ParseTraceListener.NONE, loader.getTraceListener());
+    }
+
+    @Test
+    void printLogTracesToStdout() throws Exception{
+        SimpleJSONParser parser = new SimpleJSONParser(DOCUMENT);
+        parser.setPrintLog(true);
+        assertSame(ParseTraceListener.STDOUT, parser.getTraceListener());
+        String out = captureOut(() -> parser.parse());
+        assertTrue(out.contains("match: '{', at pos 0"), out);
+        assertTrue(out.contains("parse key '\"a\"'"), out);
+
+        parser.setPrintLog(false);
+        assertSame(ParseTraceListener.NONE, parser.getTraceListener());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void printLogFieldIsResolvedOnEveryParse() throws Exception{
+        SimpleJSONParser parser = new SimpleJSONParser(DOCUMENT);
+        parser.printLog = true;
+        assertTrue(captureOut(() -> parser.parse()).contains("match: '{', at pos 0"));
+        assertSame(ParseTraceListener.NONE, parser.getTraceListener());
+        parser.printLog = false;
+        assertSame(ParseTraceListener.NONE, parser.listener());
+
+        List<String> keys = new ArrayList<>();
+        SimpleJSONParser listened = new SimpleJSONParser(DOCUMENT);
+        listened.printLog = true;
+        listened.setTraceListener(new ParseTraceListener(){
+            @Override
+            public void keyParsed(String key, int position){
+                keys.add(key);
+            }
+        });
+        listened.parse();
+        assertEquals(Arrays.asList("\"a\"", "\"b\""), keys);
+    }
+
+    interface Action {
+        void run() throws Exception;
+    }
+
+    /**
+     * Everything action prints to System.out.
+     * */
+    static String captureOut(Action action) throws Exception{
+        PrintStream out = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(bytes, true, "UTF-8"));
+        try{
+            action.run();
+        }finally{
+            System.setOut(out);
+        }
+        return bytes.toString("UTF-8");
+    }
+}
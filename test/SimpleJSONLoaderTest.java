@@ -0,0 +1,300 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SimpleJSONLoader.parse() on small documents.
+ * */
+class SimpleJSONLoaderTest {
+
+    @Test
+    void stringsAreCutOutOfTheInput() throws Exception{
+        assertEquals("", value("\"\""));
+        assertEquals("plain", value("\"plain\""));
+        assertEquals("深圳市 罗湖区", value("\"深圳市 罗湖区\""));
+        assertEquals("{[,:]}", value("\"{[,:]}\""));
+        assertEquals("  padded  ", value("  \"  padded  \"  "));
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < 100000; i++){
+            sb.append((char) ('a' + i % 26));
+        }
+        assertEquals(sb.toString(), value("\"" + sb + "\""));
+    }
+
+    @Test
+    void escapesAreDecoded() throws Exception{
+        assertEquals("\"", value("\"\\\"\""));
+        assertEquals("a\\b", value("\"a\\\\b\""));
+        assertEquals("/\b\f\n\r\t", value("\"\\/\\b\\f\\n\\r\\t\""));
+        assertEquals("\u00e9\u6df1A", value("\"\\u00e9\\u6DF1\\u0041\""));
+        assertEquals("x\"y\\", value("\"x\\\"y\\\\\""));
+        assertEquals("plain \"then\" escaped", value("\"plain \\\"then\\\" escaped\""));
+    }
+
+    @Test
+    void stringsKeepTheirPlaceAmongOtherValues() throws Exception{
+        assertEquals(Arrays.asList("a", "b\n", "", "c"), value("[\"a\", \"b\\n\",\"\" , \"c\"]"));
+        assertEquals(Collections.singletonMap("k", "v"), value("{\"k\":\"v\"}"));
+    }
+
+    @Test
+    void malformedStringsFail(){
+        String[] malformed = {"\"abc", "\"abc\\\"", "\"bad \\x escape\"", "\"\\u12\"", "\"\\u12G4\""};
+        for(String json : malformed){
+            assertThrows(Exception.class, () -> value(json), json);
+        }
+    }
+
+    @Test
+    void longArraysKeepTheirOrder() throws Exception{
+        List<Object> expected = new ArrayList<>();
+        StringBuilder sb = new StringBuilder("[");
+        for(int i = 0; i < 100000; i++){
+            expected.add(i % 2 == 0 ? "s" + i : Arrays.asList("n", "t"));
+            sb.append(i == 0 ? "" : ",").append(i % 2 == 0 ? "\"s" + i + "\"" : "[\"n\",\"t\"]");
+        }
+        assertEquals(expected, value(sb.append(']').toString()));
+    }
+
+    @Test
+    void objectsKeepEveryMember() throws Exception{
+        StringBuilder sb = new StringBuilder("{");
+        for(int i = 0; i < 20000; i++){
+            sb.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":\"").append(i).append('"');
+        }
+        Map<?, ?> map = (Map<?, ?>) value(sb.append('}').toString());
+        assertEquals(20000, map.size());
+        assertEquals("19999", map.get("k19999"));
+        assertEquals(Collections.emptyMap(), value("{}"));
+        assertEquals(Collections.emptyList(), value("[ ]"));
+    }
+
+    @Test
+    void membersKeepDocumentOrder() throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader("{\"z\":1,\"a\":{\"y\":\"1\",\"b\":\"2\",\"x\":\"3\"},\"m\":null}");
+        loader.parse();
+        assertEquals(Arrays.asList("z", "a", "m"), new ArrayList<>(loader.dataMap.keySet()));
+        Map<?, ?> inner = (Map<?, ?>) loader.get("a");
+        assertEquals(Arrays.asList("y", "b", "x"), new ArrayList<>(inner.keySet()));
+        assertEquals(Arrays.asList("2", "3"), new ArrayList<>(((Map<?, ?>) value("{\"k\":\"1\",\"k\":\"2\",\"j\":\"3\"}")).values()));
+    }
+
+    @Test
+    void recordsOfOneShapeFillTheirOwnMaps() throws Exception{
+        StringBuilder sb = new StringBuilder("[");
+        for(int i = 0; i < 300; i++){
+            sb.append(i == 0 ? "" : ",").append('{');
+            for(int k = 0; k <= i % 7; k++){
+                sb.append(k == 0 ? "" : ",").append("\"f").append(k).append("\":\"").append(i).append('"');
+            }
+            sb.append('}');
+        }
+        List<?> records = (List<?>) value(sb.append(']').toString());
+        for(int i = 0; i < 300; i++){
+            Map<?, ?> record = (Map<?, ?>) records.get(i);
+            assertEquals(i % 7 + 1, record.size());
+            assertEquals(String.valueOf(i), record.get("f" + i % 7));
+        }
+        assertEquals(Collections.emptyMap(), SimpleJSONLoader.newObjectMap(100000));
+    }
+
+    @Test
+    void everyModeAcceptsTheSameWhiteSpace() throws Exception{
+        String json = "\r\n{\r\n\t\"a\" :\r[ \"x\" ,\r\"y\" ]\r\n}\r\n ";
+        for(boolean twoStage : new boolean[]{false, true}){
+            SimpleJSONLoader loader = new SimpleJSONLoader(json);
+            loader.setTwoStage(twoStage);
+            loader.parse();
+            assertEquals(Arrays.asList("x", "y"), loader.get("a"), "twoStage " + twoStage);
+        }
+    }
+
+    @Test
+    void onlyWhiteSpaceMayFollowTheDocument(){
+        String[] trailing = {"{\"a\":\"1\"}}", "{\"a\":\"1\"} xyz", "{}\n{}", "{} ,"};
+        for(String json : trailing){
+            Exception plain = assertThrows(Exception.class, () -> new SimpleJSONLoader(json).parse(), json);
+            SimpleJSONLoader loader = new SimpleJSONLoader(json);
+            loader.setTwoStage(true);
+            Exception twoStage = assertThrows(Exception.class, loader::parse, json);
+            assertEquals(twoStage.getMessage(), plain.getMessage(), json);
+        }
+        assertEquals("Unexpected 'x' after the end of the document at position 10.",
+                assertThrows(Exception.class, () -> new SimpleJSONLoader("{\"a\":\"1\"} xyz").parse()).getMessage());
+    }
+
+    static final String[] VALUES = {
+            "0", "-12", "3.5e-7", "true", "false", "null", "\"\"", "\"a\\\"b\\\\\"", "\"\\\\\"",
+            "{}", "[]", "{\"a\":[1,{\"b\":\"]}\"}],\"c\":null}", "[1,[2,[3]],{\"x\":\"[\"}]",
+    };
+
+    static final String[] WHITE_SPACE = {"", " ", "\t", "\n", "\r", "\r\n", " \t\r\n "};
+
+    @Test
+    void skipValueStopsWhereParseValueStops() throws Exception{
+        for(String value : VALUES){
+            for(String space : WHITE_SPACE){
+                String input = value + space + ",";
+                SimpleJSONLoader loader = new SimpleJSONLoader(input);
+                loader.parseValue("");
+                loader.consumeWhiteSpace();
+                int parsed = loader.cursor;
+                loader = new SimpleJSONLoader(input);
+                loader.skipValue();
+                assertEquals(parsed, loader.cursor, input);
+                assertEquals(',', loader.peek(), input);
+            }
+        }
+    }
+
+    @Test
+    void skipValueRejectsUnbalancedInput(){
+        for(String input : new String[]{"", ",", "[1,2", "{\"a\":\"]}", "\"abc", "\"abc\\\""}){
+            SimpleJSONLoader loader = new SimpleJSONLoader(input);
+            assertThrows(Exception.class, loader::skipValue, input);
+        }
+    }
+
+    @Test
+    void whiteSpaceIsTheSameEverywhere() throws Exception{
+        for(String space : WHITE_SPACE){
+            String json = space + "{" + space + "\"a\"" + space + ":" + space + "[" + space + "1" + space + ","
+                    + space + "true" + space + "]" + space + "," + space + "\"b\"" + space + ":" + space + "null"
+                    + space + "}" + space;
+            SimpleJSONLoader loader = new SimpleJSONLoader(json);
+            loader.parse();
+            assertEquals(Arrays.asList(1, true), loader.get("a"), json);
+            assertEquals(Arrays.asList(Arrays.asList(1, true)), new SimpleJSONLoader(json).select("a"), json);
+            assertEquals(Arrays.asList(1, true), new SimpleJSONLoader(json).selectUnchecked("a[*]"), json);
+            SimpleJSONLoader lazy = new SimpleJSONLoader(json);
+            lazy.setLazy(true);
+            lazy.parse();
+            assertEquals(Arrays.asList(1, true), lazy.get("a"), json);
+        }
+    }
+
+    @Test
+    void resetLoadsTheNextDocumentWithTheSameSettings() throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader("{\"id\": 1, \"v\": [1, 2]}");
+        loader.setCompactNumericArrays(true);
+        loader.parse();
+        Map<String, Object> first = loader.dataMap;
+
+        loader.reset(new StringBuilder("{\"id\": 2, \"v\": [3]}")).parse();
+        assertEquals(Arrays.asList(3), loader.get("v"));
+        assertEquals(true, loader.get("v") instanceof JSONNumberList);
+        assertEquals(Arrays.asList(1, 2), first.get("v"));
+        assertSame(first.keySet().iterator().next(), loader.dataMap.keySet().iterator().next());
+
+        loader.reset("{\"名\": \"é\"}".getBytes(StandardCharsets.UTF_8)).parse();
+        assertEquals("é", loader.get("名"));
+        loader.setTwoStage(true);
+        loader.reset("{\"名\": [1.5]}".getBytes(StandardCharsets.UTF_8)).parse();
+        assertEquals(Arrays.asList(1.5), loader.get("名"));
+    }
+
+    @Test
+    void resetClearsThePositionOfAFailedParse() throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader("{\"a\": [1, 2");
+        Exception e = assertThrows(Exception.class, loader::parse);
+        assertTrue(e.getMessage().contains("end of input"), e.getMessage());
+        loader.reset("{\"a\": [1, 2]}").parse();
+        assertEquals(Arrays.asList(1, 2), loader.get("a"));
+        assertEquals(Collections.singletonList(2), loader.reset("{\"a\": [1, 2]}").select("a[1]"));
+    }
+
+    @Test
+    void threadLocalLoadersBelongToOneThread() throws Exception{
+        SimpleJSONLoader mine = SimpleJSONLoader.threadLocal();
+        assertSame(mine, SimpleJSONLoader.threadLocal());
+        SimpleJSONLoader[] other = new SimpleJSONLoader[1];
+        Thread thread = new Thread(() -> other[0] = SimpleJSONLoader.threadLocal());
+        thread.start();
+        thread.join();
+        assertNotSame(mine, other[0]);
+        mine.reset("{\"a\": 1}").parse();
+        assertEquals(1, mine.get("a"));
+    }
+
+    @Test
+    void threadLocalLoadersAreHandedOutWithDefaultSettings() throws Exception{
+        SimpleJSONLoader loader = SimpleJSONLoader.threadLocal();
+        loader.setLazy(true);
+        loader.setCompactNumericArrays(true);
+        loader.setProjection("a");
+        loader.setMaxDepth(3);
+        loader.reset("{\"a\": [1, 2], \"b\": 3}").parse();
+        loader.setTraceListener(ParseTraceListener.STDOUT);
+        loader.scratch = new StringBuilder(SimpleJSONLoader.MAX_RETAINED_SCRATCH + 1);
+
+        assertSame(loader, SimpleJSONLoader.threadLocal());
+        assertEquals(Collections.emptyMap(), loader.dataMap);
+        assertEquals("", loader.input);
+        assertEquals(SimpleJSONLoader.DEFAULT_MAX_DEPTH, loader.getMaxDepth());
+        assertSame(ParseTraceListener.NONE, loader.getTraceListener());
+        assertNull(loader.getProjection());
+        assertTrue(loader.scratch.capacity() <= SimpleJSONLoader.MAX_RETAINED_SCRATCH);
+        loader.reset("{\"a\": [1, 2], \"b\": 3}").parse();
+        assertEquals(Arrays.asList(1, 2), loader.get("a"));
+        assertEquals(false, loader.get("a") instanceof JSONNumberList);
+        assertEquals(Arrays.asList("a", "b"), Arrays.asList(loader.dataMap.keySet().toArray()));
+
+        Map<String, Object> kept = loader.dataMap;
+        assertSame(loader, loader.release());
+        assertEquals("", loader.input);
+        assertNull(loader.get("a"));
+        assertEquals(Arrays.asList(1, 2), kept.get("a"));
+    }
+
+    @Test
+    void nestingIsLimitedByMaxDepth() throws Exception{
+        Object expected = "x";
+        for(int i = 1; i < SimpleJSONLoader.DEFAULT_MAX_DEPTH; i++){
+            expected = Collections.singletonList(expected);
+        }
+        assertEquals(expected, value(nested(SimpleJSONLoader.DEFAULT_MAX_DEPTH - 1)));
+        assertThrows(Exception.class, () -> value(nested(SimpleJSONLoader.DEFAULT_MAX_DEPTH)));
+
+        SimpleJSONLoader loader = new SimpleJSONLoader("{\"v\":" + nested(1000) + "}");
+        loader.setMaxDepth(2000);
+        loader.parse();
+        assertEquals(2000, loader.getMaxDepth());
+        assertThrows(IllegalArgumentException.class, () -> loader.setMaxDepth(0));
+    }
+
+    /**
+     * depth arrays nested in each other, the innermost holding "x".
+     * */
+    static String nested(int depth){
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < depth; i++){
+            sb.append('[');
+        }
+        sb.append("\"x\"");
+        for(int i = 0; i < depth; i++){
+            sb.append(']');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The value json parses to, read back through a one-member document.
+     * */
+    static Object value(String json) throws Exception{
+        SimpleJSONLoader loader = new SimpleJSONLoader("{\"v\":" + json + "}");
+        loader.parse();
+        return loader.get("v");
+    }
+}
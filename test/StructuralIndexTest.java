@@ -0,0 +1,188 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Stage one of the two-stage parse, checked against a byte-by-byte reference, and stage two
+ * checked against the one-pass parse.
+ * */
+class StructuralIndexTest {
+
+    @Test
+    void smallDocumentIsIndexed(){
+        String json = "{\"a\\\"{\": [1, -2.5e3, true], \"b\" :null}";
+        assertEquals(Arrays.asList(0, 1, 7, 9, 10, 11, 13, 19, 21, 25, 26, 28, 32, 33, 37), positions(json, 0));
+    }
+
+    @Test
+    void stringsAndEscapesCrossingBlocksAreMasked(){
+        Random random = new Random(42);
+        for(int n = 0; n < 500; n++){
+            String json = randomDocument(random);
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            for(int from : new int[]{0, 3}){
+                byte[] shifted = new byte[bytes.length + from];
+                System.arraycopy(bytes, 0, shifted, from, bytes.length);
+                StructuralIndex index = StructuralIndex.build(shifted, from, bytes.length, ScalarStructuralIndexer.INSTANCE);
+                assertEquals(reference(bytes), list(index), json);
+            }
+        }
+    }
+
+    @Test
+    void backslashRunsAtBlockEnds(){
+        for(int run = 1; run <= 5; run++){
+            for(int pad = 55; pad <= 66; pad++){
+                StringBuilder sb = new StringBuilder("[\"");
+                for(int i = 0; i < pad; i++){
+                    sb.append('x');
+                }
+                for(int i = 0; i < run; i++){
+                    sb.append("\\\\");
+                }
+                sb.append("\\\"\",1]");
+                byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+                assertEquals(reference(bytes), list(StructuralIndex.build(bytes, 0, bytes.length, ScalarStructuralIndexer.INSTANCE)), sb.toString());
+            }
+        }
+    }
+
+    @Test
+    void twoStageBuildsTheSameTree() throws Exception{
+        Random random = new Random(7);
+        for(int n = 0; n < 300; n++){
+            String json = "{\"doc\": " + randomDocument(random) + "}";
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            UTF8JSONLoader onePass = new UTF8JSONLoader(bytes);
+            onePass.parse();
+            UTF8JSONLoader twoStage = new UTF8JSONLoader(bytes);
+            twoStage.parseTwoStage(ScalarStructuralIndexer.INSTANCE);
+            assertEquals(onePass.dataMap, twoStage.dataMap, json);
+
+            SimpleJSONLoader loader = new SimpleJSONLoader(json);
+            loader.setTwoStage(true);
+            loader.parse();
+            assertEquals(onePass.dataMap, loader.dataMap, json);
+        }
+    }
+
+    @Test
+    void twoStageRejectsWhatOnePassRejects(){
+        String[] malformed = {"{\"a\":1}}", "{\"a\":1} x", "{\"a\" 1}", "{\"a\":1,}", "{\"a\":[1 2]}", "{\"a\":tru}", "[1]", "{\"a\":\"x}"};
+        for(String json : malformed){
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            assertThrows(Exception.class, () -> new UTF8JSONLoader(bytes).parse(), json);
+            assertThrows(Exception.class, () -> new UTF8JSONLoader(bytes).parseTwoStage(), json);
+        }
+    }
+
+    static List<Integer> positions(String json, int from){
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return list(StructuralIndex.build(bytes, from, bytes.length - from, StructuralIndexer.best()));
+    }
+
+    static List<Integer> list(StructuralIndex index){
+        List<Integer> positions = new ArrayList<>();
+        for(int i = 0; i < index.size(); i++){
+            positions.add(index.get(i));
+        }
+        return positions;
+    }
+
+    /**
+     * The structural positions found by walking the bytes one at a time.
+     * */
+    static List<Integer> reference(byte[] input){
+        List<Integer> positions = new ArrayList<>();
+        boolean inString = false;
+        boolean escaped = false;
+        boolean inScalar = false;
+        for(int i = 0; i < input.length; i++){
+            byte c = input[i];
+            if(inString){
+                if(escaped){
+                    escaped = false;
+                }else if(c == '\\'){
+                    escaped = true;
+                }else if(c == '"'){
+                    inString = false;
+                }
+                continue;
+            }
+            if(c == '"'){
+                positions.add(i);
+                inString = true;
+                inScalar = false;
+            }else if(c == '{' || c == '}' || c == '[' || c == ']' || c == ':' || c == ','){
+                positions.add(i);
+                inScalar = false;
+            }else if(SimpleJSONLoader.isWhiteSpace((char) c)){
+                inScalar = false;
+            }else{
+                if(!inScalar){
+                    positions.add(i);
+                }
+                inScalar = true;
+            }
+        }
+        return positions;
+    }
+
+    static String randomDocument(Random random){
+        StringBuilder sb = new StringBuilder();
+        randomValue(random, sb, 0);
+        return sb.toString();
+    }
+
+    static void randomValue(Random random, StringBuilder sb, int depth){
+        String[] white = {"", " ", "\n", "\r\n\t", "   "};
+        switch (depth > 4 ? 2 + random.nextInt(3) : random.nextInt(5)){
+            case 0:
+                sb.append('{');
+                for(int i = random.nextInt(5); i > 0; i--){
+                    sb.append(white[random.nextInt(white.length)]);
+                    randomString(random, sb);
+                    sb.append(white[random.nextInt(white.length)]).append(':');
+                    randomValue(random, sb, depth + 1);
+                    sb.append(i > 1 ? "," : "");
+                }
+                sb.append('}');
+                break;
+            case 1:
+                sb.append('[');
+                for(int i = random.nextInt(6); i > 0; i--){
+                    sb.append(white[random.nextInt(white.length)]);
+                    randomValue(random, sb, depth + 1);
+                    sb.append(white[random.nextInt(white.length)]).append(i > 1 ? "," : "");
+                }
+                sb.append(']');
+                break;
+            case 2:
+                randomString(random, sb);
+                break;
+            case 3:
+                String[] numbers = {"0", "-1", "42", "3.25", "-0.5e-3", "1E10", "123456789012"};
+                sb.append(numbers[random.nextInt(numbers.length)]);
+                break;
+            default:
+                String[] literals = {"true", "false", "null"};
+                sb.append(literals[random.nextInt(literals.length)]);
+        }
+    }
+
+    static void randomString(Random random, StringBuilder sb){
+        String[] pieces = {"a", "bc", " ", "{", "]", ":", ",", "\\\"", "\\\\", "\\n", "\\u00e9", "深圳", "😀", "xxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxxx"};
+        sb.append('"');
+        for(int i = random.nextInt(8); i > 0; i--){
+            sb.append(pieces[random.nextInt(pieces.length)]);
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,210 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * UTF8JSONLoader on memory-mapped files, mostly through windows far smaller than the values in them.
+ * */
+class UTF8JSONLoaderTest {
+
+    @TempDir
+    Path dir;
+
+    List<FileChannel> channels = new ArrayList<>();
+
+    @AfterEach
+    void closeChannels() throws Exception{
+        for(FileChannel channel : channels){
+            channel.close();
+        }
+    }
+
+    @Test
+    void parseFileBuildsTheLoaderTree() throws Exception{
+        Map<String, Object> inner = new LinkedHashMap<>();
+        inner.put("city", "深圳市");
+        inner.put("open", true);
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("id", 42);
+        expected.put("big", 3000000000L);
+        expected.put("rate", -1.25e-3);
+        expected.put("tags", Arrays.asList("a", null, false, Arrays.asList()));
+        expected.put("hotel", inner);
+        expected.put("escaped", "tab\there \"q\" \u00e9");
+        String json = "{\"id\": 42, \"big\": 3000000000, \"rate\": -1.25e-3,\n"
+                + " \"tags\": [\"a\", null, false, []],\r\n \"hotel\": {\"city\": \"深圳市\", \"open\": true},"
+                + " \"escaped\": \"tab\\there \\\"q\\\" \\u00e9\"}\n";
+        assertEquals(expected, UTF8JSONLoader.parseFile(write(json)));
+    }
+
+    @Test
+    void valuesStraddlingWindowsAreReadWhole() throws Exception{
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < 3000; i++){
+            sb.append(i % 10 == 0 ? '深' : (char) ('a' + i % 26));
+        }
+        String json = "{\"short\": [1, 22, 333, 4444, 55555, 666666], \"long\": \"" + sb + "\", \"num\": 123456789012, \"end\": null}";
+        for(int window : new int[]{16, 17, 31, 64, 4096}){
+            UTF8JSONLoader loader = load(json, window);
+            loader.parse();
+            assertEquals(Arrays.asList(1, 22, 333, 4444, 55555, 666666), loader.get("short"), "window " + window);
+            assertEquals(sb.toString(), loader.get("long"), "window " + window);
+            assertEquals(123456789012L, loader.get("num"), "window " + window);
+            assertTrue(loader.dataMap.containsKey("end"));
+        }
+    }
+
+    @Test
+    void numbersLongerThanTheWindowFail() throws Exception{
+        UTF8JSONLoader loader = load("{\"n\": 12345678901234567890, \"m\": 1}", 16);
+        Exception e = assertThrows(Exception.class, loader::parse);
+        assertTrue(e.getMessage().startsWith("Number longer than the window"), e.getMessage());
+        loader = load("{\"n\": 12345678901234567890, \"m\": 1}", 32);
+        loader.parse();
+        assertEquals(new BigInteger("12345678901234567890"), loader.get("n"));
+    }
+
+    @Test
+    void manySmallObjectsAcrossWindows() throws Exception{
+        StringBuilder sb = new StringBuilder("{\"rows\": [");
+        for(int i = 0; i < 2000; i++){
+            sb.append(i == 0 ? "" : ",").append("{\"i\": ").append(i).append(", \"s\": \"r").append(i).append("\"}");
+        }
+        UTF8JSONLoader loader = load(sb.append("]}").toString(), 64);
+        loader.parse();
+        List<?> rows = (List<?>) loader.get("rows");
+        assertEquals(2000, rows.size());
+        assertEquals("r1999", ((Map<?, ?>) rows.get(1999)).get("s"));
+        assertEquals(1999, ((Map<?, ?>) rows.get(1999)).get("i"));
+    }
+
+    @Test
+    void onlyWhiteSpaceMayFollowTheObject() throws Exception{
+        assertEquals(new LinkedHashMap<>(), UTF8JSONLoader.parseFile(write(" {} \r\n\t")));
+        String[] malformed = {"{\"a\":1}}", "{\"a\":1} xyz", "[1]", "", "{\"a\" 1}", "{\"a\":1,}", "{\"a\":tru}", "{\"a\":\"open}"};
+        for(String json : malformed){
+            Exception e = assertThrows(Exception.class, () -> UTF8JSONLoader.parseFile(write(json)), json);
+            assertTrue(e.getMessage().contains("position"), e.getMessage());
+        }
+    }
+
+    @Test
+    void nestingIsLimitedByMaxDepth() throws Exception{
+        String deep = "{\"v\":" + SimpleJSONLoaderTest.nested(SimpleJSONLoader.DEFAULT_MAX_DEPTH) + "}";
+        assertThrows(Exception.class, () -> UTF8JSONLoader.parseFile(write(deep)));
+        UTF8JSONLoader loader = load(deep, 16);
+        loader.setMaxDepth(SimpleJSONLoader.DEFAULT_MAX_DEPTH + 1);
+        loader.parse();
+    }
+
+    @Test
+    void byteArraysAndBuffersParseInPlace() throws Exception{
+        byte[] json = "xx{\"s\": \"深圳 😀\", \"n\": [1, -2.5]}yy".getBytes(StandardCharsets.UTF_8);
+        int length = json.length - 4;
+        UTF8JSONLoader loader = new UTF8JSONLoader(json, 2, length);
+        loader.parse();
+        assertEquals("深圳 😀", loader.get("s"));
+        assertEquals(Arrays.asList(1, -2.5), loader.get("n"));
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(json.length);
+        direct.put(json).position(2).limit(2 + length);
+        loader = new UTF8JSONLoader(direct);
+        loader.parse();
+        assertEquals("深圳 😀", loader.get("s"));
+        assertEquals(2, direct.position());
+
+        loader = new UTF8JSONLoader("{\"plain\": \"ascii only\", \"e\": \"a\\u00e9\\n\"}".getBytes(StandardCharsets.UTF_8));
+        loader.parse();
+        assertEquals("ascii only", loader.get("plain"));
+        assertEquals("a\u00e9\n", loader.get("e"));
+        assertThrows(Exception.class, () -> new UTF8JSONLoader("{} {}".getBytes(StandardCharsets.UTF_8)).parse());
+    }
+
+    @Test
+    void resetLoadsTheNextBuffer() throws Exception{
+        UTF8JSONLoader loader = new UTF8JSONLoader("{\"a\": [1, 2".getBytes(StandardCharsets.UTF_8));
+        assertThrows(Exception.class, loader::parse);
+        byte[] json = "xx{\"a\": \"深圳\"}yy".getBytes(StandardCharsets.UTF_8);
+        loader.reset(json, 2, json.length - 4).parse();
+        assertEquals("深圳", loader.get("a"));
+        loader.reset(ByteBuffer.wrap("{\"a\": 2}".getBytes(StandardCharsets.UTF_8))).parseTwoStage();
+        assertEquals(2, loader.get("a"));
+    }
+
+    @Test
+    void malformedUTF8IsReportedAtItsPosition(){
+        int[][] malformed = {
+                {0xC0, 0x80},             // overlong NUL
+                {0xE0, 0x80, 0xAF},       // overlong '/'
+                {0xED, 0xA0, 0x80},       // lone surrogate
+                {0xE6, 0xB7},             // truncated
+                {0xE6, 0x41, 0x41},       // bad continuation
+                {0x80},                   // stray continuation
+                {0xF5, 0x80, 0x80, 0x80}, // beyond U+10FFFF
+        };
+        for(int[] sequence : malformed){
+            byte[] head = "{\"k\": \"ab".getBytes(StandardCharsets.US_ASCII);
+            byte[] json = new byte[head.length + sequence.length + 3];
+            System.arraycopy(head, 0, json, 0, head.length);
+            for(int i = 0; i < sequence.length; i++){
+                json[head.length + i] = (byte) sequence[i];
+            }
+            json[json.length - 3] = 'z';
+            json[json.length - 2] = '"';
+            json[json.length - 1] = '}';
+            Exception e = assertThrows(Exception.class, () -> new UTF8JSONLoader(json).parse(), Arrays.toString(sequence));
+            assertEquals("Malformed UTF-8 at position 9.", e.getMessage(), Arrays.toString(sequence));
+        }
+    }
+
+    @Test
+    void malformedUTF8AcrossWindowsIsReported() throws Exception{
+        StringBuilder sb = new StringBuilder("{\"k\": \"");
+        for(int i = 0; i < 100; i++){
+            sb.append('a');
+        }
+        byte[] head = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] json = new byte[head.length + 4];
+        System.arraycopy(head, 0, json, 0, head.length);
+        json[head.length] = (byte) 0xED;
+        json[head.length + 1] = (byte) 0xB0;
+        json[head.length + 2] = '"';
+        json[head.length + 3] = '}';
+        Path file = dir.resolve("bad.json");
+        Files.write(file, json);
+        Exception e = assertThrows(Exception.class, () -> UTF8JSONLoader.parseFile(file));
+        assertTrue(e.getMessage().startsWith("Malformed UTF-8"), e.getMessage());
+    }
+
+    Path write(String json) throws Exception{
+        Path file = Files.createTempFile(dir, "doc", ".json");
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    /**
+     * A loader over json mapped window by window. The channel is closed after the test.
+     * */
+    UTF8JSONLoader load(String json, int windowSize) throws Exception{
+        FileChannel channel = FileChannel.open(write(json), StandardOpenOption.READ);
+        channels.add(channel);
+        return new UTF8JSONLoader(channel, windowSize);
+    }
+}
@@ -0,0 +1,110 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * UTF8JSONWriter against JSONWriter output encoded with getBytes(UTF_8).
+ * */
+class UTF8JSONWriterTest {
+
+    static final String[] STRINGS = {
+            "", "plain ascii", "tab\tquote\"slash\\/", "\u0000\u001f\u007f", "é", "深圳市", "😀 and 😀",
+            "  ", "lone \ud800 high", "lone \udc00 low", "mixed é深😀 text \"quoted\"\n",
+    };
+
+    @Test
+    void stringsEncodeLikeGetBytes(){
+        for(String s : STRINGS){
+            assertArrayEquals(expected(s), UTF8JSONWriter.toJSONBytes(s), s);
+            assertArrayEquals(expected(Arrays.asList(s, s)), UTF8JSONWriter.toJSONBytes(Arrays.asList(s, s)), s);
+        }
+    }
+
+    @Test
+    void randomTreesEncodeLikeGetBytes() throws Exception{
+        Random random = new Random(12);
+        for(int n = 0; n < 300; n++){
+            String json = "{\"doc\": " + StructuralIndexTest.randomDocument(random) + "}";
+            SimpleJSONLoader loader = new SimpleJSONLoader(json);
+            loader.parse();
+            byte[] bytes = UTF8JSONWriter.toJSONBytes(loader.dataMap);
+            assertArrayEquals(expected(loader.dataMap), bytes, json);
+            SimpleJSONLoader parsed = new SimpleJSONLoader().reset(bytes);
+            parsed.parse();
+            assertEquals(loader.dataMap, parsed.dataMap, json);
+        }
+        for(String json : new String[]{"{\"v\": [1, -2, 3]}", "{\"v\": [3000000000, 1]}", "{\"v\": [1.5, -2e-9]}"}){
+            SimpleJSONLoader loader = new SimpleJSONLoader(json);
+            loader.setCompactNumericArrays(true);
+            loader.parse();
+            assertArrayEquals(expected(loader.dataMap), UTF8JSONWriter.toJSONBytes(loader.dataMap), json);
+        }
+    }
+
+    @Test
+    void sinksReceiveTheSameBytes() throws Exception{
+        Map<String, Object> document = new LinkedHashMap<>();
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < 2000; i++){
+            sb.append(STRINGS[i % STRINGS.length]);
+        }
+        document.put("long", sb.toString());
+        document.put("list", Arrays.asList(1, 2.5, -3L << 40, true, null, "深"));
+        byte[] expected = expected(document);
+
+        for(int bufferSize : new int[]{16, 64, 8192}){
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            UTF8JSONWriter writer = new UTF8JSONWriter(stream, bufferSize);
+            writer.value(document);
+            writer.flush();
+            assertArrayEquals(expected, stream.toByteArray(), "stream, buffer " + bufferSize);
+
+            ByteArrayOutputStream channel = new ByteArrayOutputStream();
+            writer = new UTF8JSONWriter(Channels.newChannel(channel), bufferSize);
+            writer.value(document);
+            writer.close();
+            assertArrayEquals(expected, channel.toByteArray(), "channel, buffer " + bufferSize);
+        }
+
+        UTF8JSONWriter memory = new UTF8JSONWriter();
+        memory.value(document);
+        assertEquals(expected.length, memory.size());
+        ByteBuffer buffer = memory.buffer();
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.get(copy);
+        assertArrayEquals(expected, copy);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        memory.writeTo(out);
+        assertArrayEquals(expected, out.toByteArray());
+    }
+
+    @Test
+    void threadLocalWritersAreResetAndReused() throws Exception{
+        UTF8JSONWriter writer = UTF8JSONWriter.threadLocal();
+        writer.value(Arrays.asList("a", 1));
+        assertArrayEquals(expected(Arrays.asList("a", 1)), writer.toByteArray());
+
+        UTF8JSONWriter again = UTF8JSONWriter.threadLocal();
+        assertSame(writer, again);
+        assertEquals(0, again.size());
+        again.beginObject().name("k").value("v").endObject();
+        assertArrayEquals("{\"k\":\"v\"}".getBytes(StandardCharsets.UTF_8), again.toByteArray());
+        assertNotSame(again.toByteArray(), again.toByteArray());
+    }
+
+    static byte[] expected(Object value){
+        return JSONWriter.toJSONString(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
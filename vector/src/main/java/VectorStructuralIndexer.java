@@ -0,0 +1,44 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * StructuralIndexer comparing 32 or 64 bytes at a time with the Vector API.
+ *
+ * '[' and ']' differ from '{' and '}' only in bit 0x20, so brackets and braces are found with
+ * two comparisons after setting that bit.
+ * */
+public class VectorStructuralIndexer implements StructuralIndexer {
+
+    static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.length() >= 64
+            ? ByteVector.SPECIES_512
+            : ByteVector.SPECIES_256;
+
+    @Override
+    public void classify(byte[] input, int from, long[] masks){
+        long quote = 0;
+        long backslash = 0;
+        long whitespace = 0;
+        long operator = 0;
+        for(int i = 0; i < 64; i += SPECIES.length()){
+            ByteVector v = ByteVector.fromArray(SPECIES, input, from + i);
+            quote |= v.eq((byte) '"').toLong() << i;
+            backslash |= v.eq((byte) '\\').toLong() << i;
+            VectorMask<Byte> ws = v.eq((byte) ' ')
+                    .or(v.eq((byte) '\n'))
+                    .or(v.eq((byte) '\t'))
+                    .or(v.eq((byte) '\r'));
+            whitespace |= ws.toLong() << i;
+            ByteVector folded = v.or((byte) 0x20);
+            VectorMask<Byte> op = folded.eq((byte) '{')
+                    .or(folded.eq((byte) '}'))
+                    .or(v.eq((byte) ':'))
+                    .or(v.eq((byte) ','));
+            operator |= op.toLong() << i;
+        }
+        masks[QUOTE] = quote;
+        masks[BACKSLASH] = backslash;
+        masks[WHITESPACE] = whitespace;
+        masks[OPERATOR] = operator;
+    }
+}